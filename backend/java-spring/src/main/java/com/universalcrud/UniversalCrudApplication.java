@@ -2,10 +2,23 @@ package com.universalcrud;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class UniversalCrudApplication {
     public static void main(String[] args) {
-        SpringApplication.run(UniversalCrudApplication.class, args);
+        ConfigurableApplicationContext context = SpringApplication.run(UniversalCrudApplication.class, args);
+        
+        // CDS training run (see the fast-startup Maven profile): exit once started so the JVM dumps its archive
+        if (Boolean.getBoolean("app.cds.training-run")) {
+            System.exit(SpringApplication.exit(context));
+        }
+        
+        // Seeding from the command line (seed profile): the runners have finished, nothing left to serve
+        if (context.getEnvironment().getProperty("app.seed.exit", Boolean.class, false)) {
+            System.exit(SpringApplication.exit(context));
+        }
     }
 }
@@ -67,23 +67,7 @@ public class AuthController {
     @PostMapping("/register")
     public ResponseEntity<Map<String, Object>> registerUser(@Valid @RequestBody RegisterRequest registerRequest) {
         try {
-            // Check if username exists
-            if (userService.existsByUsername(registerRequest.getUsername())) {
-                Map<String, Object> response = new HashMap<>();
-                response.put("success", false);
-                response.put("message", "Username is already taken!");
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
-            }
-            
-            // Check if email exists
-            if (userService.existsByEmail(registerRequest.getEmail())) {
-                Map<String, Object> response = new HashMap<>();
-                response.put("success", false);
-                response.put("message", "Email is already in use!");
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
-            }
-            
-            // Create new user
+            // Create new user; createUser checks username and email, usually without touching the database
             User user = new User(registerRequest.getUsername(),
                     registerRequest.getEmail(),
                     registerRequest.getPassword());
@@ -107,9 +91,18 @@ public class AuthController {
             
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
         } catch (Exception e) {
+            // Keep the messages of the former up-front checks, clients match on them
+            String message;
+            if (UserService.USERNAME_EXISTS.equals(e.getMessage())) {
+                message = "Username is already taken!";
+            } else if (UserService.EMAIL_EXISTS.equals(e.getMessage())) {
+                message = "Email is already in use!";
+            } else {
+                message = "Failed to register user: " + e.getMessage();
+            }
             Map<String, Object> response = new HashMap<>();
             response.put("success", false);
-            response.put("message", "Failed to register user: " + e.getMessage());
+            response.put("message", message);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         }
     }
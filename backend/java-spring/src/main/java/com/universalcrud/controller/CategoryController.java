@@ -1,10 +1,18 @@
 package com.universalcrud.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.universalcrud.dto.CategoryWithProducts;
 import com.universalcrud.entity.Category;
+import com.universalcrud.entity.Product;
 import com.universalcrud.service.CategoryService;
+import com.universalcrud.util.PageRequests;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -19,16 +27,27 @@ import java.util.Optional;
 @CrossOrigin(origins = "*")
 public class CategoryController {
     
+    private static final String MERGE_PATCH_JSON = "application/merge-patch+json";
+    
+    private static final int MAX_PRODUCTS_PER_CATEGORY = 20;
+    
     @Autowired
     private CategoryService categoryService;
     
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getAllCategories() {
+    public ResponseEntity<Map<String, Object>> getAllCategories(
+            @RequestParam(defaultValue = "false") boolean withCounts,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size) {
         try {
-            List<Category> categories = categoryService.getAllCategories();
+            // Category pickers load the list in one go, so the default page is the largest one allowed
+            Pageable pageable = PageRequests.of(page, size, Sort.by("name", "id"));
+            // withCounts: product counts, stock value and deletability for the page in one grouped query
+            Page<?> categories = withCounts ? categoryService.getAllCategorySummaries(pageable) : categoryService.getAllCategories(pageable);
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("data", categories);
+            response.put("data", categories.getContent());
+            response.put("pagination", PageRequests.pagination(categories));
             response.put("message", "Categories retrieved successfully");
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -63,15 +82,47 @@ public class CategoryController {
         }
     }
     
+    @GetMapping("/with-products")
+    public ResponseEntity<Map<String, Object>> getCategoriesWithTopProducts(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "5") int perCategory) {
+        try {
+            Pageable pageable = PageRequests.of(page, size, Sort.by("name"));
+            Page<CategoryWithProducts> categories = categoryService.getCategoriesWithTopProducts(pageable,
+                    Math.max(1, Math.min(perCategory, MAX_PRODUCTS_PER_CATEGORY)));
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", categories.getContent());
+            response.put("pagination", PageRequests.pagination(categories));
+            response.put("message", "Categories with products retrieved successfully");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to retrieve categories: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+    
     @GetMapping("/{id}/with-products")
-    public ResponseEntity<Map<String, Object>> getCategoryWithProducts(@PathVariable Long id) {
+    public ResponseEntity<Map<String, Object>> getCategoryWithProducts(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
         try {
-            Optional<Category> category = categoryService.getCategoryWithProducts(id);
+            Optional<Category> category = categoryService.getCategoryById(id);
             Map<String, Object> response = new HashMap<>();
             
             if (category.isPresent()) {
+                Page<Product> products = categoryService.getCategoryProducts(id, PageRequests.of(page, size));
                 response.put("success", true);
-                response.put("data", category.get());
+                response.put("data", Map.of(
+                    "category", category.get(),
+                    "products", products.getContent()
+                ));
+                response.put("pagination", PageRequests.pagination(products));
                 response.put("message", "Category with products retrieved successfully");
                 return ResponseEntity.ok(response);
             } else {
@@ -123,6 +174,42 @@ public class CategoryController {
         }
     }
     
+    @PatchMapping(value = "/{id}", consumes = {MERGE_PATCH_JSON, MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> patchCategory(@PathVariable Long id, @RequestBody JsonNode patch) {
+        try {
+            Category category = categoryService.patchCategory(id, patch);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", category);
+            response.put("message", "Category updated successfully");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to update category: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+    }
+    
+    @PatchMapping(consumes = {MERGE_PATCH_JSON, MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> patchCategories(@RequestBody List<JsonNode> items) {
+        try {
+            List<Long> ids = categoryService.patchCategories(items);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", Map.of("updated", ids.size(), "ids", ids));
+            response.put("message", ids.size() + " categories updated successfully");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to update categories: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+    }
+    
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Map<String, Object>> deleteCategory(@PathVariable Long id) {
@@ -141,12 +228,16 @@ public class CategoryController {
     }
     
     @GetMapping("/search")
-    public ResponseEntity<Map<String, Object>> searchCategories(@RequestParam String name) {
+    public ResponseEntity<Map<String, Object>> searchCategories(
+            @RequestParam String name,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
         try {
-            List<Category> categories = categoryService.searchCategoriesByName(name);
+            Page<Category> categories = categoryService.searchCategoriesByName(name, PageRequests.of(page, size, Sort.by("name", "id")));
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("data", categories);
+            response.put("data", categories.getContent());
+            response.put("pagination", PageRequests.pagination(categories));
             response.put("message", "Categories found");
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -1,21 +1,34 @@
 package com.universalcrud.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.universalcrud.dto.ProductQuery;
+import com.universalcrud.dto.ProductQueryResult;
+import com.universalcrud.dto.StockBucket;
+import com.universalcrud.dto.StockMovement;
 import com.universalcrud.entity.Product;
 import com.universalcrud.entity.User;
+import com.universalcrud.service.ImageStorageService;
 import com.universalcrud.service.ProductService;
+import com.universalcrud.service.StockLedgerService;
 import com.universalcrud.service.UserService;
+import com.universalcrud.util.PageRequests;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,9 +39,17 @@ import java.util.Optional;
 @CrossOrigin(origins = "*")
 public class ProductController {
     
+    private static final String MERGE_PATCH_JSON = "application/merge-patch+json";
+    
     @Autowired
     private ProductService productService;
     
+    @Autowired
+    private ImageStorageService imageStorageService;
+    
+    @Autowired
+    private StockLedgerService stockLedgerService;
+    
     @Autowired
     private UserService userService;
     
@@ -38,7 +59,7 @@ public class ProductController {
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) Long categoryId) {
         try {
-            Pageable pageable = PageRequest.of(page, size);
+            Pageable pageable = PageRequests.of(page, size);
             Page<Product> products;
             
             if (categoryId != null) {
@@ -50,14 +71,7 @@ public class ProductController {
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("data", products.getContent());
-            response.put("pagination", Map.of(
-                "page", products.getNumber(),
-                "size", products.getSize(),
-                "totalElements", products.getTotalElements(),
-                "totalPages", products.getTotalPages(),
-                "hasNext", products.hasNext(),
-                "hasPrevious", products.hasPrevious()
-            ));
+            response.put("pagination", PageRequests.pagination(products));
             response.put("message", "Products retrieved successfully");
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -117,7 +131,7 @@ public class ProductController {
     }
     
     @PutMapping("/{id}")
-    @PreAuthorize("hasRole('ADMIN') or @productService.getProductById(#id).orElse(new com.universalcrud.entity.Product()).createdBy.username == authentication.name")
+    @PreAuthorize("hasPermission(#id, 'product', 'write')")
     public ResponseEntity<Map<String, Object>> updateProduct(@PathVariable Long id, @Valid @RequestBody Product productDetails) {
         try {
             Product updatedProduct = productService.updateProduct(id, productDetails);
@@ -134,8 +148,66 @@ public class ProductController {
         }
     }
     
+    @PostMapping(value = "/{id}/image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasPermission(#id, 'product', 'write')")
+    public ResponseEntity<Map<String, Object>> uploadImage(@PathVariable Long id, @RequestParam("file") MultipartFile file,
+                                                           HttpServletRequest request) {
+        try {
+            String name = imageStorageService.store(file);
+            Product product = productService.updateImage(id, request.getContextPath() + "/api/images/" + name);
+            imageStorageService.generateThumbnails(name);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", product);
+            response.put("message", "Image uploaded successfully");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to upload image: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+    }
+    
+    @PatchMapping(value = "/{id}", consumes = {MERGE_PATCH_JSON, MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasPermission(#id, 'product', 'write')")
+    public ResponseEntity<Map<String, Object>> patchProduct(@PathVariable Long id, @RequestBody JsonNode patch) {
+        try {
+            Product product = productService.patchProduct(id, patch);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", product);
+            response.put("message", "Product updated successfully");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to update product: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+    }
+    
+    @PatchMapping(consumes = {MERGE_PATCH_JSON, MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> patchProducts(@RequestBody List<JsonNode> items) {
+        try {
+            List<Long> ids = productService.patchProducts(items);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", Map.of("updated", ids.size(), "ids", ids));
+            response.put("message", ids.size() + " products updated successfully");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to update products: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+    }
+    
     @DeleteMapping("/{id}")
-    @PreAuthorize("hasRole('ADMIN') or @productService.getProductById(#id).orElse(new com.universalcrud.entity.Product()).createdBy.username == authentication.name")
+    @PreAuthorize("hasPermission(#id, 'product', 'delete')")
     public ResponseEntity<Map<String, Object>> deleteProduct(@PathVariable Long id) {
         try {
             productService.deleteProduct(id);
@@ -155,22 +227,19 @@ public class ProductController {
     public ResponseEntity<Map<String, Object>> searchProducts(
             @RequestParam String q,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean facets) {
         try {
-            Pageable pageable = PageRequest.of(page, size);
+            Pageable pageable = PageRequests.of(page, size);
             Page<Product> products = productService.searchProducts(q, pageable);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("data", products.getContent());
-            response.put("pagination", Map.of(
-                "page", products.getNumber(),
-                "size", products.getSize(),
-                "totalElements", products.getTotalElements(),
-                "totalPages", products.getTotalPages(),
-                "hasNext", products.hasNext(),
-                "hasPrevious", products.hasPrevious()
-            ));
+            response.put("pagination", PageRequests.pagination(products));
+            if (facets) {
+                response.put("facets", productService.getSearchFacets(q));
+            }
             response.put("message", "Products found");
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -181,13 +250,49 @@ public class ProductController {
         }
     }
     
+    @GetMapping("/query")
+    public ResponseEntity<Map<String, Object>> queryProducts(@ModelAttribute ProductQuery query) {
+        try {
+            ProductQueryResult result = productService.queryProducts(query);
+            
+            Map<String, Object> pagination = new HashMap<>();
+            pagination.put("size", result.getSize());
+            pagination.put("hasNext", result.hasNext());
+            pagination.put("nextCursor", result.getNextCursor());
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", result.getContent());
+            response.put("pagination", pagination);
+            if (query.isFacets()) {
+                response.put("facets", productService.getQueryFacets(query));
+            }
+            response.put("message", "Products retrieved successfully");
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to query products: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+    
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<Map<String, Object>> getProductsByCategory(@PathVariable Long categoryId) {
+    public ResponseEntity<Map<String, Object>> getProductsByCategory(
+            @PathVariable Long categoryId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
         try {
-            List<Product> products = productService.getProductsByCategory(categoryId);
+            Page<Product> products = productService.getProductsByCategory(categoryId, PageRequests.of(page, size, Sort.by("id")));
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("data", products);
+            response.put("data", products.getContent());
+            response.put("pagination", PageRequests.pagination(products));
             response.put("message", "Products retrieved successfully");
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -201,12 +306,17 @@ public class ProductController {
     @GetMapping("/price-range")
     public ResponseEntity<Map<String, Object>> getProductsByPriceRange(
             @RequestParam BigDecimal minPrice,
-            @RequestParam BigDecimal maxPrice) {
+            @RequestParam BigDecimal maxPrice,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
         try {
-            List<Product> products = productService.getProductsByPriceRange(minPrice, maxPrice);
+            Pageable pageable = PageRequests.of(page, size);
+            Page<Product> products = productService.getProductsByPriceRange(minPrice, maxPrice, pageable);
+            
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("data", products);
+            response.put("data", products.getContent());
+            response.put("pagination", PageRequests.pagination(products));
             response.put("message", "Products retrieved successfully");
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -219,12 +329,18 @@ public class ProductController {
     
     @GetMapping("/low-stock")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Map<String, Object>> getLowStockProducts(@RequestParam(defaultValue = "10") Integer threshold) {
+    public ResponseEntity<Map<String, Object>> getLowStockProducts(
+            @RequestParam(defaultValue = "10") Integer threshold,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
         try {
-            List<Product> products = productService.getLowStockProducts(threshold);
+            Pageable pageable = PageRequests.of(page, size);
+            Page<Product> products = productService.getLowStockProducts(threshold, pageable);
+            
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("data", products);
+            response.put("data", products.getContent());
+            response.put("pagination", PageRequests.pagination(products));
             response.put("message", "Low stock products retrieved successfully");
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -237,12 +353,17 @@ public class ProductController {
     
     @GetMapping("/out-of-stock")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Map<String, Object>> getOutOfStockProducts() {
+    public ResponseEntity<Map<String, Object>> getOutOfStockProducts(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
         try {
-            List<Product> products = productService.getOutOfStockProducts();
+            Pageable pageable = PageRequests.of(page, size);
+            Page<Product> products = productService.getOutOfStockProducts(pageable);
+            
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("data", products);
+            response.put("data", products.getContent());
+            response.put("pagination", PageRequests.pagination(products));
             response.put("message", "Out of stock products retrieved successfully");
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -291,8 +412,93 @@ public class ProductController {
         }
     }
     
+    @GetMapping("/{id}/stock-history")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getStockHistory(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "500") int limit) {
+        try {
+            List<StockMovement> movements = stockLedgerService.getMovements(id, from,
+                    to != null ? to : LocalDateTime.now().plusSeconds(1), limit);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", movements);
+            response.put("message", "Stock history retrieved successfully");
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to retrieve stock history: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+    
+    @GetMapping("/{id}/stock-history/at")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getStockAt(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime time) {
+        try {
+            Optional<Integer> quantity = stockLedgerService.getQuantityAt(id, time);
+            Map<String, Object> response = new HashMap<>();
+            if (quantity.isEmpty()) {
+                response.put("success", false);
+                response.put("message", "No stock movements recorded for product " + id + " at or before " + time);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+            }
+            Map<String, Object> data = new HashMap<>();
+            data.put("productId", id);
+            data.put("time", time);
+            data.put("quantity", quantity.get());
+            response.put("success", true);
+            response.put("data", data);
+            response.put("message", "Stock level retrieved successfully");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to retrieve stock level: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+    
+    @GetMapping("/{id}/stock-history/aggregate")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getStockAggregate(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "hour") String bucket) {
+        try {
+            List<StockBucket> buckets = stockLedgerService.getBuckets(id, from,
+                    to != null ? to : LocalDateTime.now().plusSeconds(1), bucket);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", buckets);
+            response.put("message", "Stock movements aggregated successfully");
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to aggregate stock movements: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+    
     @PostMapping("/{id}/toggle-status")
-    @PreAuthorize("hasRole('ADMIN') or @productService.getProductById(#id).orElse(new com.universalcrud.entity.Product()).createdBy.username == authentication.name")
+    @PreAuthorize("hasPermission(#id, 'product', 'write')")
     public ResponseEntity<Map<String, Object>> toggleProductStatus(@PathVariable Long id) {
         try {
             Product product = productService.toggleProductStatus(id);
@@ -315,14 +521,14 @@ public class ProductController {
         try {
             long totalProducts = productService.getActiveProductCount();
             BigDecimal inventoryValue = productService.getTotalInventoryValue();
-            List<Product> lowStock = productService.getLowStockProducts(10);
-            List<Product> outOfStock = productService.getOutOfStockProducts();
+            long lowStockCount = productService.getLowStockCount(10);
+            long outOfStockCount = productService.getOutOfStockCount();
             
             Map<String, Object> stats = new HashMap<>();
             stats.put("totalProducts", totalProducts);
             stats.put("inventoryValue", inventoryValue);
-            stats.put("lowStockCount", lowStock.size());
-            stats.put("outOfStockCount", outOfStock.size());
+            stats.put("lowStockCount", lowStockCount);
+            stats.put("outOfStockCount", outOfStockCount);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
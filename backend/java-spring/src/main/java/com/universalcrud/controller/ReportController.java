@@ -0,0 +1,130 @@
+package com.universalcrud.controller;
+
+import com.universalcrud.dto.ReportRequest;
+import com.universalcrud.service.ReportJob;
+import com.universalcrud.service.ReportJobService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/reports")
+@CrossOrigin(origins = "*")
+public class ReportController {
+    
+    @Autowired
+    private ReportJobService reportJobService;
+    
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> submitReport(@Valid @RequestBody ReportRequest request, Authentication authentication) {
+        try {
+            ReportJob job = reportJobService.submit(request, authentication.getName());
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", job);
+            response.put("message", "Report job submitted");
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (RejectedExecutionException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header("Retry-After", "30").body(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to submit report job: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+    }
+    
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getReportJobs() {
+        List<ReportJob> jobs = reportJobService.getJobs();
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", jobs);
+        response.put("message", "Report jobs retrieved successfully");
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getReportJob(@PathVariable String id) {
+        Optional<ReportJob> job = reportJobService.getJob(id);
+        Map<String, Object> response = new HashMap<>();
+        
+        if (job.isPresent()) {
+            response.put("success", true);
+            response.put("data", job.get());
+            response.put("message", "Report job retrieved successfully");
+            return ResponseEntity.ok(response);
+        } else {
+            response.put("success", false);
+            response.put("message", "Report job not found");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+    }
+    
+    // Server-sent events: "status" on every state change and "progress" while rows are processed
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<SseEmitter> streamReportJob(@PathVariable String id) {
+        SseEmitter emitter = reportJobService.subscribe(id);
+        if (emitter == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+    
+    @GetMapping("/{id}/result")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getReportResult(@PathVariable String id) {
+        Optional<ReportJob> job = reportJobService.getJob(id);
+        Map<String, Object> response = new HashMap<>();
+        
+        if (job.isEmpty()) {
+            response.put("success", false);
+            response.put("message", "Report job not found");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        if (job.get().getStatus() != ReportJob.Status.COMPLETED) {
+            response.put("success", false);
+            response.put("data", job.get());
+            response.put("message", "Report is not available, job is " + job.get().getStatus());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
+        
+        response.put("success", true);
+        response.put("data", job.get().getResult());
+        response.put("message", "Report retrieved successfully");
+        return ResponseEntity.ok(response);
+    }
+    
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> cancelReportJob(@PathVariable String id) {
+        Map<String, Object> response = new HashMap<>();
+        if (reportJobService.cancel(id)) {
+            response.put("success", true);
+            response.put("message", "Report job cancelled");
+            return ResponseEntity.ok(response);
+        }
+        response.put("success", false);
+        response.put("message", "Report job not found");
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+    }
+}
@@ -1,10 +1,17 @@
 package com.universalcrud.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.universalcrud.dto.BulkImportResult;
 import com.universalcrud.entity.User;
+import com.universalcrud.service.UserBulkImportService;
 import com.universalcrud.service.UserService;
+import com.universalcrud.util.PageRequests;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -20,17 +27,25 @@ import java.util.Optional;
 @CrossOrigin(origins = "*")
 public class UserController {
     
+    private static final String MERGE_PATCH_JSON = "application/merge-patch+json";
+    
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private UserBulkImportService userBulkImportService;
+    
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Map<String, Object>> getAllUsers() {
+    public ResponseEntity<Map<String, Object>> getAllUsers(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
         try {
-            List<User> users = userService.getAllUsers();
+            Page<User> users = userService.getAllUsers(PageRequests.of(page, size, Sort.by("id")));
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("data", users);
+            response.put("data", users.getContent());
+            response.put("pagination", PageRequests.pagination(users));
             response.put("message", "Users retrieved successfully");
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -42,7 +57,7 @@ public class UserController {
     }
     
     @GetMapping("/{id}")
-    @PreAuthorize("hasRole('ADMIN') or authentication.name == @userService.getUserById(#id).orElse(new com.universalcrud.entity.User()).username")
+    @PreAuthorize("hasPermission(#id, 'user', 'read')")
     public ResponseEntity<Map<String, Object>> getUserById(@PathVariable Long id) {
         try {
             Optional<User> user = userService.getUserById(id);
@@ -109,8 +124,31 @@ public class UserController {
         }
     }
     
+    @PostMapping("/bulk")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> importUsers(@RequestBody List<User> users) {
+        try {
+            BulkImportResult result = userBulkImportService.importUsers(users);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", result);
+            response.put("message", "Created " + result.getCreated() + " of " + users.size() + " users");
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to import users: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+    
     @PutMapping("/{id}")
-    @PreAuthorize("hasRole('ADMIN') or authentication.name == @userService.getUserById(#id).orElse(new com.universalcrud.entity.User()).username")
+    @PreAuthorize("hasPermission(#id, 'user', 'write')")
     public ResponseEntity<Map<String, Object>> updateUser(@PathVariable Long id, @Valid @RequestBody User userDetails) {
         try {
             User updatedUser = userService.updateUser(id, userDetails);
@@ -127,6 +165,42 @@ public class UserController {
         }
     }
     
+    @PatchMapping(value = "/{id}", consumes = {MERGE_PATCH_JSON, MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasPermission(#id, 'user', 'write') and (hasRole('ADMIN') or !(#patch.has('role') or #patch.has('enabled')))")
+    public ResponseEntity<Map<String, Object>> patchUser(@PathVariable Long id, @RequestBody JsonNode patch) {
+        try {
+            User user = userService.patchUser(id, patch);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", user);
+            response.put("message", "User updated successfully");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to update user: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+    }
+    
+    @PatchMapping(consumes = {MERGE_PATCH_JSON, MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> patchUsers(@RequestBody List<JsonNode> items) {
+        try {
+            List<Long> ids = userService.patchUsers(items);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", Map.of("updated", ids.size(), "ids", ids));
+            response.put("message", ids.size() + " users updated successfully");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to update users: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+    }
+    
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Map<String, Object>> deleteUser(@PathVariable Long id) {
@@ -146,12 +220,16 @@ public class UserController {
     
     @GetMapping("/search")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Map<String, Object>> searchUsers(@RequestParam String name) {
+    public ResponseEntity<Map<String, Object>> searchUsers(
+            @RequestParam String name,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
         try {
-            List<User> users = userService.searchUsersByName(name);
+            Page<User> users = userService.searchUsersByName(name, PageRequests.of(page, size, Sort.by("id")));
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("data", users);
+            response.put("data", users.getContent());
+            response.put("pagination", PageRequests.pagination(users));
             response.put("message", "Users found");
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -181,7 +259,7 @@ public class UserController {
     }
     
     @PostMapping("/{id}/change-password")
-    @PreAuthorize("hasRole('ADMIN') or authentication.name == @userService.getUserById(#id).orElse(new com.universalcrud.entity.User()).username")
+    @PreAuthorize("hasPermission(#id, 'user', 'write')")
     public ResponseEntity<Map<String, Object>> changePassword(
             @PathVariable Long id, 
             @RequestBody Map<String, String> passwordData) {
@@ -0,0 +1,38 @@
+package com.universalcrud.dto;
+
+import java.util.List;
+
+// Outcome of POST /api/users/bulk, one entry per input row in input order
+public class BulkImportResult {
+    private final int created;
+    private final int failed;
+    private final long elapsedMs;
+    private final List<Row> results;
+    
+    // id is set for created rows, error for failed ones
+    public record Row(int index, String username, String status, Long id, String error) {
+    }
+    
+    public BulkImportResult(List<Row> results, long elapsedMs) {
+        this.results = results;
+        this.elapsedMs = elapsedMs;
+        this.created = (int) results.stream().filter(row -> row.error() == null).count();
+        this.failed = results.size() - created;
+    }
+    
+    public int getCreated() {
+        return created;
+    }
+    
+    public int getFailed() {
+        return failed;
+    }
+    
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+    
+    public List<Row> getResults() {
+        return results;
+    }
+}
@@ -0,0 +1,99 @@
+package com.universalcrud.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public class CategorySummary {
+    private Long id;
+    private String name;
+    private String description;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private long activeProductCount;
+    private long totalProductCount;
+    private BigDecimal stockValue;
+    
+    public CategorySummary() {}
+    
+    // Used by the JPQL constructor expression; aggregates over an empty join come back as null
+    public CategorySummary(Long id, String name, String description, LocalDateTime createdAt, LocalDateTime updatedAt,
+                           Number activeProductCount, Number totalProductCount, Number stockValue) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.activeProductCount = activeProductCount != null ? activeProductCount.longValue() : 0;
+        this.totalProductCount = totalProductCount != null ? totalProductCount.longValue() : 0;
+        this.stockValue = stockValue != null ? new BigDecimal(stockValue.toString()) : BigDecimal.ZERO;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+    
+    public void setDescription(String description) {
+        this.description = description;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+    
+    public long getActiveProductCount() {
+        return activeProductCount;
+    }
+    
+    public void setActiveProductCount(long activeProductCount) {
+        this.activeProductCount = activeProductCount;
+    }
+    
+    public long getTotalProductCount() {
+        return totalProductCount;
+    }
+    
+    public void setTotalProductCount(long totalProductCount) {
+        this.totalProductCount = totalProductCount;
+    }
+    
+    public BigDecimal getStockValue() {
+        return stockValue;
+    }
+    
+    public void setStockValue(BigDecimal stockValue) {
+        this.stockValue = stockValue;
+    }
+    
+    // Mirrors CategoryService.canDeleteCategory: any product, active or not, blocks deletion
+    public boolean isCanDelete() {
+        return totalProductCount == 0;
+    }
+}
@@ -0,0 +1,34 @@
+package com.universalcrud.dto;
+
+import com.universalcrud.entity.Category;
+import com.universalcrud.entity.Product;
+
+import java.util.List;
+
+public class CategoryWithProducts {
+    private Category category;
+    private List<Product> products;
+    
+    public CategoryWithProducts() {}
+    
+    public CategoryWithProducts(Category category, List<Product> products) {
+        this.category = category;
+        this.products = products;
+    }
+    
+    public Category getCategory() {
+        return category;
+    }
+    
+    public void setCategory(Category category) {
+        this.category = category;
+    }
+    
+    public List<Product> getProducts() {
+        return products;
+    }
+    
+    public void setProducts(List<Product> products) {
+        this.products = products;
+    }
+}
@@ -0,0 +1,51 @@
+package com.universalcrud.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Counts shown next to search results: per category, per price bucket and in/out of stock. They cover
+// every row matching the filters, not just the returned page.
+public class ProductFacets {
+    private final long total;
+    private final List<CategoryCount> categories;
+    private final List<PriceBucket> priceBuckets;
+    private final long inStock;
+    private final long outOfStock;
+    
+    // categoryId and name are null for products without a category
+    public record CategoryCount(Long categoryId, String name, long count) {
+    }
+    
+    // [min, max); max is null for the open-ended top bucket
+    public record PriceBucket(BigDecimal min, BigDecimal max, long count) {
+    }
+    
+    public ProductFacets(long total, List<CategoryCount> categories, List<PriceBucket> priceBuckets,
+                         long inStock, long outOfStock) {
+        this.total = total;
+        this.categories = categories;
+        this.priceBuckets = priceBuckets;
+        this.inStock = inStock;
+        this.outOfStock = outOfStock;
+    }
+    
+    public long getTotal() {
+        return total;
+    }
+    
+    public List<CategoryCount> getCategories() {
+        return categories;
+    }
+    
+    public List<PriceBucket> getPriceBuckets() {
+        return priceBuckets;
+    }
+    
+    public long getInStock() {
+        return inStock;
+    }
+    
+    public long getOutOfStock() {
+        return outOfStock;
+    }
+}
@@ -0,0 +1,125 @@
+package com.universalcrud.dto;
+
+import java.math.BigDecimal;
+
+// Query parameters of GET /api/products/query; every filter is optional and they combine with AND
+public class ProductQuery {
+    private Long categoryId;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Integer minQuantity;
+    private Integer maxQuantity;
+    private Boolean active = true;
+    private Long createdBy;
+    
+    // Name prefix or exact SKU, both of which can use an index
+    private String q;
+    
+    // "<field>" or "<field>,asc|desc", field one of ProductSort
+    private String sort = "createdAt,desc";
+    private Integer size = 20;
+    
+    // nextCursor of the previous page; only valid with the same sort
+    private String cursor;
+    
+    // Also return category, price bucket and stock counts over the whole filtered result
+    private boolean facets;
+    
+    public ProductQuery() {}
+    
+    public Long getCategoryId() {
+        return categoryId;
+    }
+    
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+    
+    public BigDecimal getMinPrice() {
+        return minPrice;
+    }
+    
+    public void setMinPrice(BigDecimal minPrice) {
+        this.minPrice = minPrice;
+    }
+    
+    public BigDecimal getMaxPrice() {
+        return maxPrice;
+    }
+    
+    public void setMaxPrice(BigDecimal maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+    
+    public Integer getMinQuantity() {
+        return minQuantity;
+    }
+    
+    public void setMinQuantity(Integer minQuantity) {
+        this.minQuantity = minQuantity;
+    }
+    
+    public Integer getMaxQuantity() {
+        return maxQuantity;
+    }
+    
+    public void setMaxQuantity(Integer maxQuantity) {
+        this.maxQuantity = maxQuantity;
+    }
+    
+    public Boolean getActive() {
+        return active;
+    }
+    
+    public void setActive(Boolean active) {
+        this.active = active;
+    }
+    
+    public Long getCreatedBy() {
+        return createdBy;
+    }
+    
+    public void setCreatedBy(Long createdBy) {
+        this.createdBy = createdBy;
+    }
+    
+    public String getQ() {
+        return q;
+    }
+    
+    public void setQ(String q) {
+        this.q = q;
+    }
+    
+    public String getSort() {
+        return sort;
+    }
+    
+    public void setSort(String sort) {
+        this.sort = sort;
+    }
+    
+    public Integer getSize() {
+        return size;
+    }
+    
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+    
+    public String getCursor() {
+        return cursor;
+    }
+    
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+    
+    public boolean isFacets() {
+        return facets;
+    }
+    
+    public void setFacets(boolean facets) {
+        this.facets = facets;
+    }
+}
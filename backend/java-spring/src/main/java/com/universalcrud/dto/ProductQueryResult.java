@@ -0,0 +1,34 @@
+package com.universalcrud.dto;
+
+import com.universalcrud.entity.Product;
+
+import java.util.List;
+
+// One keyset page of GET /api/products/query; nextCursor is null on the last page
+public class ProductQueryResult {
+    private final List<Product> content;
+    private final int size;
+    private final String nextCursor;
+    
+    public ProductQueryResult(List<Product> content, int size, String nextCursor) {
+        this.content = content;
+        this.size = size;
+        this.nextCursor = nextCursor;
+    }
+    
+    public List<Product> getContent() {
+        return content;
+    }
+    
+    public int getSize() {
+        return size;
+    }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,46 @@
+package com.universalcrud.dto;
+
+import com.universalcrud.service.ReportJob;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public class ReportRequest {
+    @NotNull(message = "Report type is required")
+    private ReportJob.Type type;
+    
+    // LOW_STOCK only
+    @Min(value = 1, message = "Threshold must be at least 1")
+    private Integer threshold = 10;
+    
+    // LOW_STOCK only: rows listed in the result, the count covers all of them
+    @Min(value = 1, message = "Limit must be at least 1")
+    @Max(value = 10000, message = "Limit cannot exceed 10000")
+    private Integer limit = 1000;
+    
+    public ReportRequest() {}
+    
+    public ReportJob.Type getType() {
+        return type;
+    }
+    
+    public void setType(ReportJob.Type type) {
+        this.type = type;
+    }
+    
+    public Integer getThreshold() {
+        return threshold;
+    }
+    
+    public void setThreshold(Integer threshold) {
+        this.threshold = threshold;
+    }
+    
+    public Integer getLimit() {
+        return limit;
+    }
+    
+    public void setLimit(Integer limit) {
+        this.limit = limit;
+    }
+}
@@ -0,0 +1,12 @@
+package com.universalcrud.dto;
+
+import java.time.LocalDateTime;
+
+// Stock movements of one product within [start, start + bucket). closingQuantity is the level at the end
+// of the bucket, null while no movement has been recorded yet.
+public record StockBucket(LocalDateTime start, long unitsIn, long unitsOut, int movements, Integer closingQuantity) {
+    
+    public long getNet() {
+        return unitsIn - unitsOut;
+    }
+}
@@ -0,0 +1,17 @@
+package com.universalcrud.dto;
+
+import java.time.LocalDateTime;
+
+// One change of a product's stock as kept by the stock ledger: delta is the change from the previous
+// recorded level, quantity the level it left. userId is null for writes made outside a request.
+public record StockMovement(LocalDateTime at, int delta, int quantity, Cause cause, Long userId) {
+    
+    // Ordinals are stored in the ledger segments, so only ever append
+    public enum Cause {
+        CREATED,
+        EDITED,
+        SET,
+        ADJUSTED,
+        DELETED
+    }
+}
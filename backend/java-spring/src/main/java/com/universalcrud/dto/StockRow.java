@@ -0,0 +1,64 @@
+package com.universalcrud.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Flat projection of an active product streamed by the report jobs; never a managed entity
+public class StockRow {
+    private final Long id;
+    private final String name;
+    private final String sku;
+    private final Long categoryId;
+    private final String categoryName;
+    private final BigDecimal price;
+    private final int quantity;
+    private final LocalDateTime updatedAt;
+    
+    public StockRow(Long id, String name, String sku, Long categoryId, String categoryName,
+                    BigDecimal price, Integer quantity, LocalDateTime updatedAt) {
+        this.id = id;
+        this.name = name;
+        this.sku = sku;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.price = price != null ? price : BigDecimal.ZERO;
+        this.quantity = quantity != null ? quantity : 0;
+        this.updatedAt = updatedAt;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public String getSku() {
+        return sku;
+    }
+    
+    public Long getCategoryId() {
+        return categoryId;
+    }
+    
+    public String getCategoryName() {
+        return categoryName;
+    }
+    
+    public BigDecimal getPrice() {
+        return price;
+    }
+    
+    public int getQuantity() {
+        return quantity;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public BigDecimal getValue() {
+        return price.multiply(BigDecimal.valueOf(quantity));
+    }
+}
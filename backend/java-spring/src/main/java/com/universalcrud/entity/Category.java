@@ -1,21 +1,30 @@
 package com.universalcrud.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.universalcrud.util.BlockIdGenerator;
+import com.universalcrud.util.UniqueConstraints;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "categories")
+@DynamicUpdate
+@Table(name = "categories", uniqueConstraints = @UniqueConstraint(name = UniqueConstraints.CATEGORY_NAME, columnNames = "name"))
 public class Category {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "category_id")
+    @GenericGenerator(name = "category_id", type = BlockIdGenerator.class,
+            parameters = @Parameter(name = "block", value = "categories"))
     private Long id;
     
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     @NotBlank(message = "Category name is required")
     @Size(min = 2, max = 100, message = "Category name must be between 2 and 100 characters")
     private String name;
@@ -29,6 +38,8 @@ public class Category {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Never serialised: a category's products are always read through a paginated query
+    @JsonIgnore
     @OneToMany(mappedBy = "category", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Product> products;
     
@@ -0,0 +1,169 @@
+package com.universalcrud.entity;
+
+import com.universalcrud.util.BlockIdGenerator;
+import jakarta.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import java.time.LocalDateTime;
+
+@Entity
+// One Idempotency-Key per caller and path. The unique constraint is what makes a key single-use across
+// nodes: the request whose insert wins runs, every other one reads the row. See IdempotencyStore.
+@Table(name = "idempotency_records",
+        uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_records_key",
+                columnNames = {"principal", "route", "idempotency_key"}),
+        indexes = @Index(name = "idx_idempotency_records_expires", columnList = "expires_at"))
+public class IdempotencyRecord {
+    
+    public static final int MAX_BODY_BYTES = 1024 * 1024;
+    
+    public enum State {
+        // Running on some node; expires_at is the lease after which a crashed owner's key is freed
+        IN_PROGRESS,
+        // Finished with a response kept for replay
+        COMPLETED,
+        // Finished, but the response was too large to keep; retries are refused rather than run again
+        NOT_REPLAYABLE
+    }
+    
+    @Id
+    @GeneratedValue(generator = "idempotency_record_id")
+    @GenericGenerator(name = "idempotency_record_id", type = BlockIdGenerator.class,
+            parameters = @Parameter(name = "block", value = "idempotency_records"))
+    private Long id;
+    
+    @Column(nullable = false, length = 100)
+    private String principal;
+    
+    @Column(nullable = false)
+    private String route;
+    
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+    
+    @Column(nullable = false, length = 32)
+    private byte[] fingerprint;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private State state;
+    
+    private Integer status;
+    
+    @Column(name = "content_type")
+    private String contentType;
+    
+    // Replayed headers as a JSON object
+    @Column(length = 2000)
+    private String headers;
+    
+    @Column(length = MAX_BODY_BYTES)
+    private byte[] body;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    // Constructors
+    public IdempotencyRecord() {
+    }
+    
+    public IdempotencyRecord(String principal, String route, String idempotencyKey, byte[] fingerprint,
+                             LocalDateTime expiresAt) {
+        this.principal = principal;
+        this.route = route;
+        this.idempotencyKey = idempotencyKey;
+        this.fingerprint = fingerprint;
+        this.state = State.IN_PROGRESS;
+        this.expiresAt = expiresAt;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getPrincipal() {
+        return principal;
+    }
+    
+    public void setPrincipal(String principal) {
+        this.principal = principal;
+    }
+    
+    public String getRoute() {
+        return route;
+    }
+    
+    public void setRoute(String route) {
+        this.route = route;
+    }
+    
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+    
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+    
+    public byte[] getFingerprint() {
+        return fingerprint;
+    }
+    
+    public void setFingerprint(byte[] fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+    
+    public State getState() {
+        return state;
+    }
+    
+    public void setState(State state) {
+        this.state = state;
+    }
+    
+    public Integer getStatus() {
+        return status;
+    }
+    
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+    
+    public String getContentType() {
+        return contentType;
+    }
+    
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+    
+    public String getHeaders() {
+        return headers;
+    }
+    
+    public void setHeaders(String headers) {
+        this.headers = headers;
+    }
+    
+    public byte[] getBody() {
+        return body;
+    }
+    
+    public void setBody(byte[] body) {
+        this.body = body;
+    }
+    
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+    
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -1,20 +1,39 @@
 package com.universalcrud.entity;
 
+import com.universalcrud.util.BlockIdGenerator;
+import com.universalcrud.util.UniqueConstraints;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "products")
+// UPDATEs list only the columns that changed, so a price edit doesn't rewrite the description
+@DynamicUpdate
+// The indexes back the filter and sort combinations of GET /api/products/query; each sort index ends
+// in id so ORDER BY key, id and the keyset predicate are plain range scans
+@Table(name = "products", uniqueConstraints = @UniqueConstraint(name = UniqueConstraints.PRODUCT_SKU, columnNames = "sku"),
+        indexes = {
+            @Index(name = "idx_products_active_created", columnList = "is_active, created_at, id"),
+            @Index(name = "idx_products_category_active_created", columnList = "category_id, is_active, created_at, id"),
+            @Index(name = "idx_products_price", columnList = "price, id"),
+            @Index(name = "idx_products_quantity", columnList = "quantity, id"),
+            @Index(name = "idx_products_name", columnList = "name"),
+            @Index(name = "idx_products_created_by", columnList = "created_by")
+        })
 public class Product {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "product_id")
+    @GenericGenerator(name = "product_id", type = BlockIdGenerator.class,
+            parameters = @Parameter(name = "block", value = "products"))
     private Long id;
     
     @Column(nullable = false)
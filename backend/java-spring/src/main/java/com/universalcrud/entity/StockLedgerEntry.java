@@ -0,0 +1,115 @@
+package com.universalcrud.entity;
+
+import com.universalcrud.dto.StockMovement.Cause;
+import com.universalcrud.util.BlockIdGenerator;
+import jakarta.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import java.time.LocalDateTime;
+
+@Entity
+// Stock ledger outbox. One row per stock change, inserted in the transaction that makes the change, so a
+// committed change always has its movement. The segment writer later packs settled rows into
+// StockLedgerSegment rows and deletes them in the same transaction.
+@Table(name = "stock_ledger_entries",
+        indexes = @Index(name = "idx_stock_ledger_entries_product_at", columnList = "product_id, at, id"))
+public class StockLedgerEntry {
+    
+    @Id
+    @GeneratedValue(generator = "stock_ledger_entry_id")
+    @GenericGenerator(name = "stock_ledger_entry_id", type = BlockIdGenerator.class,
+            parameters = @Parameter(name = "block", value = "stock_ledger_entries"))
+    private Long id;
+    
+    // No foreign key: history outlives the product
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    
+    @Column(nullable = false)
+    private LocalDateTime at;
+    
+    @Column(name = "before_quantity", nullable = false)
+    private Integer beforeQuantity;
+    
+    @Column(name = "after_quantity", nullable = false)
+    private Integer afterQuantity;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Cause cause;
+    
+    @Column(name = "user_id")
+    private Long userId;
+    
+    // Constructors
+    public StockLedgerEntry() {
+    }
+    
+    public StockLedgerEntry(Long productId, LocalDateTime at, Integer beforeQuantity, Integer afterQuantity,
+                            Cause cause, Long userId) {
+        this.productId = productId;
+        this.at = at;
+        this.beforeQuantity = beforeQuantity;
+        this.afterQuantity = afterQuantity;
+        this.cause = cause;
+        this.userId = userId;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    
+    public LocalDateTime getAt() {
+        return at;
+    }
+    
+    public void setAt(LocalDateTime at) {
+        this.at = at;
+    }
+    
+    public Integer getBeforeQuantity() {
+        return beforeQuantity;
+    }
+    
+    public void setBeforeQuantity(Integer beforeQuantity) {
+        this.beforeQuantity = beforeQuantity;
+    }
+    
+    public Integer getAfterQuantity() {
+        return afterQuantity;
+    }
+    
+    public void setAfterQuantity(Integer afterQuantity) {
+        this.afterQuantity = afterQuantity;
+    }
+    
+    public Cause getCause() {
+        return cause;
+    }
+    
+    public void setCause(Cause cause) {
+        this.cause = cause;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+}
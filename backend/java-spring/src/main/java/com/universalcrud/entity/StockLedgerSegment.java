@@ -0,0 +1,127 @@
+package com.universalcrud.entity;
+
+import com.universalcrud.util.BlockIdGenerator;
+import jakarta.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import java.time.LocalDateTime;
+
+@Entity
+// Append-only stock ledger. A row holds a run of one product's movements, delta-encoded behind a
+// checkpoint (the quantity before the first movement), so any point in time is answered from one row
+// found by (product_id, start_at). Rows never overlap in time for a product.
+@Table(name = "stock_ledger_segments",
+        indexes = @Index(name = "idx_stock_ledger_product_start", columnList = "product_id, start_at"))
+public class StockLedgerSegment {
+    
+    public static final int MAX_MOVEMENT_BYTES = 16384;
+    
+    @Id
+    @GeneratedValue(generator = "stock_ledger_segment_id")
+    @GenericGenerator(name = "stock_ledger_segment_id", type = BlockIdGenerator.class,
+            parameters = @Parameter(name = "block", value = "stock_ledger_segments"))
+    private Long id;
+    
+    // No foreign key: history outlives the product
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    
+    @Column(name = "start_at", nullable = false)
+    private LocalDateTime startAt;
+    
+    @Column(name = "end_at", nullable = false)
+    private LocalDateTime endAt;
+    
+    @Column(name = "start_quantity", nullable = false)
+    private Integer startQuantity;
+    
+    @Column(name = "end_quantity", nullable = false)
+    private Integer endQuantity;
+    
+    @Column(name = "movement_count", nullable = false)
+    private Integer movementCount;
+    
+    @Column(nullable = false, length = MAX_MOVEMENT_BYTES)
+    private byte[] movements;
+    
+    // Constructors
+    public StockLedgerSegment() {
+    }
+    
+    public StockLedgerSegment(Long productId, LocalDateTime startAt, LocalDateTime endAt, Integer startQuantity,
+                              Integer endQuantity, Integer movementCount, byte[] movements) {
+        this.productId = productId;
+        this.startAt = startAt;
+        this.endAt = endAt;
+        this.startQuantity = startQuantity;
+        this.endQuantity = endQuantity;
+        this.movementCount = movementCount;
+        this.movements = movements;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    
+    public LocalDateTime getStartAt() {
+        return startAt;
+    }
+    
+    public void setStartAt(LocalDateTime startAt) {
+        this.startAt = startAt;
+    }
+    
+    public LocalDateTime getEndAt() {
+        return endAt;
+    }
+    
+    public void setEndAt(LocalDateTime endAt) {
+        this.endAt = endAt;
+    }
+    
+    public Integer getStartQuantity() {
+        return startQuantity;
+    }
+    
+    public void setStartQuantity(Integer startQuantity) {
+        this.startQuantity = startQuantity;
+    }
+    
+    public Integer getEndQuantity() {
+        return endQuantity;
+    }
+    
+    public void setEndQuantity(Integer endQuantity) {
+        this.endQuantity = endQuantity;
+    }
+    
+    public Integer getMovementCount() {
+        return movementCount;
+    }
+    
+    public void setMovementCount(Integer movementCount) {
+        this.movementCount = movementCount;
+    }
+    
+    public byte[] getMovements() {
+        return movements;
+    }
+    
+    public void setMovements(byte[] movements) {
+        this.movements = movements;
+    }
+}
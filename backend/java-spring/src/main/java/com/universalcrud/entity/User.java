@@ -1,9 +1,14 @@
 package com.universalcrud.entity;
 
+import com.universalcrud.util.BlockIdGenerator;
+import com.universalcrud.util.UniqueConstraints;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -13,19 +18,25 @@ import java.util.Collection;
 import java.util.Collections;
 
 @Entity
-@Table(name = "users")
+@DynamicUpdate
+@Table(name = "users", uniqueConstraints = {
+        @UniqueConstraint(name = UniqueConstraints.USER_USERNAME, columnNames = "username"),
+        @UniqueConstraint(name = UniqueConstraints.USER_EMAIL, columnNames = "email")
+})
 public class User implements UserDetails {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "user_id")
+    @GenericGenerator(name = "user_id", type = BlockIdGenerator.class,
+            parameters = @Parameter(name = "block", value = "users"))
     private Long id;
     
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     @NotBlank(message = "Username is required")
     @Size(min = 3, max = 50, message = "Username must be between 3 and 50 characters")
     private String username;
     
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     @NotBlank(message = "Email is required")
     @Email(message = "Email should be valid")
     private String email;
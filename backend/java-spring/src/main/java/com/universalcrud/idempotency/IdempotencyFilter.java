@@ -0,0 +1,313 @@
+package com.universalcrud.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.universalcrud.entity.IdempotencyRecord;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// Idempotency-Key handling for the POSTs clients retry on timeouts. The first response per (user, route,
+// key) is kept in the database (see IdempotencyStore) and replayed to retries on any node, so a retried
+// create or stock adjustment is a cache hit instead of a second write. A duplicate arriving while the
+// first is still running polls for it. Runs after Spring Security so keys are scoped to the authenticated
+// user and one user can't replay another's response.
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 10)
+public class IdempotencyFilter extends OncePerRequestFilter {
+    
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final long POLL_INTERVAL_MS = 50;
+    
+    // Servlet-relative, like the security matchers
+    private static final List<Pattern> ROUTES = List.of(
+            Pattern.compile("/api/products/?"),
+            Pattern.compile("/api/products/\\d+/adjust-stock"),
+            Pattern.compile("/api/auth/register"));
+    
+    // Headers worth replaying; everything else is recomputed per response
+    private static final List<String> REPLAYED_HEADERS = List.of(HttpHeaders.LOCATION, HttpHeaders.ETAG);
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private IdempotencyStore store;
+    
+    @Value("${app.idempotency.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.idempotency.wait-timeout-ms:10000}")
+    private long waitTimeoutMs;
+    
+    // Larger responses are not kept; their key is marked NOT_REPLAYABLE so retries get 409, not a rerun
+    @Value("${app.idempotency.max-body-bytes:65536}")
+    private int maxBodyBytes;
+    
+    // Request bodies are held in memory to fingerprint them, so anything larger is refused before reading
+    @Value("${app.idempotency.max-request-bytes:65536}")
+    private int maxRequestBytes;
+    
+    private Counter executed;
+    private Counter replayed;
+    private Counter conflicts;
+    private Counter unreplayable;
+    private Counter mismatches;
+    
+    @Override
+    protected void initFilterBean() {
+        maxBodyBytes = Math.min(maxBodyBytes, IdempotencyRecord.MAX_BODY_BYTES);
+        executed = outcome("executed");
+        replayed = outcome("replayed");
+        conflicts = outcome("in-progress");
+        unreplayable = outcome("not-replayable");
+        mismatches = outcome("mismatch");
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled || !"POST".equals(request.getMethod()) || request.getHeader(HEADER) == null) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return ROUTES.stream().noneMatch(route -> route.matcher(path).matches());
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String idempotencyKey = request.getHeader(HEADER).trim();
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            error(response, HttpServletResponse.SC_BAD_REQUEST, HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        
+        if (request.getContentLengthLong() > maxRequestBytes) {
+            error(response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, tooLarge());
+            return;
+        }
+        // Chunked bodies have no declared length, so read one byte past the limit to detect them
+        byte[] body = request.getInputStream().readNBytes(maxRequestBytes + 1);
+        if (body.length > maxRequestBytes) {
+            error(response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, tooLarge());
+            return;
+        }
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request, body);
+        byte[] fingerprint = sha256(cachedRequest.body);
+        String principal = principal();
+        String route = request.getRequestURI();
+        long deadline = System.currentTimeMillis() + waitTimeoutMs;
+        
+        while (true) {
+            IdempotencyStore.Claim claim = store.begin(principal, route, idempotencyKey, fingerprint);
+            if (claim.owner()) {
+                execute(claim.record().getId(), cachedRequest, response, filterChain);
+                return;
+            }
+            
+            IdempotencyRecord record = claim.record();
+            if (!IdempotencyStore.matches(record, fingerprint)) {
+                mismatches.increment();
+                error(response, 422, HEADER + " was already used with a different request body");
+                return;
+            }
+            if (record.getState() == IdempotencyRecord.State.COMPLETED) {
+                replay(record, response);
+                return;
+            }
+            if (record.getState() == IdempotencyRecord.State.NOT_REPLAYABLE) {
+                unreplayable.increment();
+                error(response, HttpServletResponse.SC_CONFLICT, "A request with this " + HEADER
+                        + " already completed with status " + record.getStatus() + "; its response was not kept");
+                return;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                conflicts.increment();
+                response.setHeader("Retry-After", "1");
+                error(response, HttpServletResponse.SC_CONFLICT, "A request with this " + HEADER + " is still in progress");
+                return;
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServletException("Interrupted while waiting for an in-flight request", e);
+            }
+            // Still running, finished, or released after a transient failure; look again
+        }
+    }
+    
+    private void execute(Long id, CachedBodyRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        executed.increment();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean kept = false;
+        try {
+            filterChain.doFilter(request, wrapper);
+            if (isReplayable(wrapper.getStatus())) {
+                Map<String, String> headers = new LinkedHashMap<>();
+                for (String name : REPLAYED_HEADERS) {
+                    if (wrapper.getHeader(name) != null) {
+                        headers.put(name, wrapper.getHeader(name));
+                    }
+                }
+                byte[] body = wrapper.getContentSize() <= maxBodyBytes ? wrapper.getContentAsByteArray() : null;
+                store.complete(id, wrapper.getStatus(), wrapper.getContentType(), headers, body);
+                kept = true;
+            }
+        } finally {
+            if (!kept) {
+                store.release(id);
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+    
+    // Server errors and throttling are transient, so a retry must run again rather than see them replayed
+    private static boolean isReplayable(int status) {
+        return status < 500 && status != HttpServletResponse.SC_CONFLICT && status != 429;
+    }
+    
+    private void replay(IdempotencyRecord record, HttpServletResponse response) throws IOException {
+        replayed.increment();
+        response.setStatus(record.getStatus());
+        if (record.getContentType() != null) {
+            response.setContentType(record.getContentType());
+        }
+        store.headers(record).forEach(response::setHeader);
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(record.getBody().length);
+        response.getOutputStream().write(record.getBody());
+    }
+    
+    private void error(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        Map<String, Object> body = new HashMap<>();
+        body.put("success", false);
+        body.put("status", status);
+        body.put("message", message);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+    
+    private String tooLarge() {
+        return "Request body with " + HEADER + " must be at most " + maxRequestBytes + " bytes";
+    }
+    
+    private static String principal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : "anonymous";
+    }
+    
+    private Counter outcome(String outcome) {
+        return Counter.builder("app.idempotency.requests").tag("outcome", outcome).register(meterRegistry);
+    }
+    
+    private static byte[] sha256(byte[] body) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(body);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    // The body is read up front to fingerprint it, so the rest of the chain reads this copy
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+        final byte[] body;
+        
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+        
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+                
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return in.read(buffer, offset, length);
+                }
+                
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+                
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+                
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    // The whole body is already in memory, so it is available and complete at once
+                    try {
+                        listener.onDataAvailable();
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+        
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+        
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+        
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
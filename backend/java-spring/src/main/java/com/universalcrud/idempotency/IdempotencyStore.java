@@ -0,0 +1,137 @@
+package com.universalcrud.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.universalcrud.entity.IdempotencyRecord;
+import com.universalcrud.entity.IdempotencyRecord.State;
+import com.universalcrud.repository.IdempotencyRecordRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+
+// Idempotency keys in the database, so a retry the load balancer sends to another node still finds the
+// first attempt. begin() inserts an IN_PROGRESS row; the unique (principal, route, key) constraint lets
+// exactly one request win, on any node, and the losers read the winner's row. The owner then stores its
+// response, marks the key NOT_REPLAYABLE when the response is too large to keep, or releases the key when
+// the outcome was transient. Each call runs in its own short transaction, never the request's.
+@Component
+public class IdempotencyStore {
+    
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+    private static final TypeReference<Map<String, String>> HEADERS = new TypeReference<>() {
+    };
+    
+    // Either the caller owns the key and must run the request, or record is the row already holding it
+    public record Claim(IdempotencyRecord record, boolean owner) {
+    }
+    
+    @Autowired
+    private IdempotencyRecordRepository repository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${app.idempotency.ttl-minutes:60}")
+    private long ttlMinutes;
+    
+    // How long an IN_PROGRESS key survives its owner dying mid-request before a retry may run again
+    @Value("${app.idempotency.lease-seconds:60}")
+    private long leaseSeconds;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    public Claim begin(String principal, String route, String key, byte[] fingerprint) {
+        while (true) {
+            // Read first: waiters poll through here, and a losing insert would log a constraint violation
+            Optional<IdempotencyRecord> existing = repository.findByPrincipalAndRouteAndIdempotencyKey(principal, route, key);
+            if (existing.isPresent()) {
+                IdempotencyRecord record = existing.get();
+                if (!record.getExpiresAt().isBefore(LocalDateTime.now())) {
+                    return new Claim(record, false);
+                }
+                transactionTemplate.executeWithoutResult(status ->
+                        repository.deleteIfExpired(record.getId(), LocalDateTime.now()));
+            }
+            try {
+                IdempotencyRecord created = transactionTemplate.execute(status -> repository.saveAndFlush(
+                        new IdempotencyRecord(principal, route, key, fingerprint, LocalDateTime.now().plusSeconds(leaseSeconds))));
+                return new Claim(created, true);
+            } catch (DataIntegrityViolationException e) {
+                // Another request took the key since the read; go back and read its row
+            }
+        }
+    }
+    
+    // A null body marks the key NOT_REPLAYABLE: the request ran, but its response can't be served again
+    public void complete(Long id, int status, String contentType, Map<String, String> headers, byte[] body) {
+        String headerJson;
+        try {
+            headerJson = objectMapper.writeValueAsString(headers);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        transactionTemplate.executeWithoutResult(tx -> repository.findById(id).ifPresent(record -> {
+            record.setState(body != null ? State.COMPLETED : State.NOT_REPLAYABLE);
+            record.setStatus(status);
+            record.setContentType(contentType);
+            record.setHeaders(headerJson);
+            record.setBody(body);
+            record.setExpiresAt(LocalDateTime.now().plusMinutes(ttlMinutes));
+        }));
+    }
+    
+    // Frees the key so a retry runs the request again
+    public void release(Long id) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> repository.deleteById(id));
+        } catch (RuntimeException e) {
+            // The lease still expires, so the key is freed later rather than never
+            logger.warn("Failed to release idempotency key {}: {}", id, e.getMessage());
+        }
+    }
+    
+    public Map<String, String> headers(IdempotencyRecord record) {
+        if (record.getHeaders() == null) {
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(record.getHeaders(), HEADERS);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    public static boolean matches(IdempotencyRecord record, byte[] fingerprint) {
+        return Arrays.equals(record.getFingerprint(), fingerprint);
+    }
+    
+    @Scheduled(initialDelayString = "${app.idempotency.sweep-interval-ms:60000}",
+            fixedDelayString = "${app.idempotency.sweep-interval-ms:60000}")
+    public void sweep() {
+        Integer removed = transactionTemplate.execute(status -> repository.deleteExpired(LocalDateTime.now()));
+        if (removed != null && removed > 0) {
+            logger.debug("Removed {} expired idempotency keys", removed);
+        }
+    }
+}
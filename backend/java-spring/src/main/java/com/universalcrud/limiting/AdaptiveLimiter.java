@@ -0,0 +1,140 @@
+package com.universalcrud.limiting;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Gradient concurrency limit: the number of requests allowed in flight follows the ratio between the
+// long-term and the recent average latency. While latency stays near its baseline the limit grows by
+// about sqrt(limit) per window; when requests start queueing (in Tomcat, in the Hikari pool, in the
+// database) recent latency rises and the limit shrinks with it. Timeouts and 503s from downstream
+// additionally back the limit off multiplicatively, AIMD style.
+public class AdaptiveLimiter {
+    
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double LONG_RTT_SMOOTHING = 0.05;
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final int MIN_WINDOW_SAMPLES = 10;
+    
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final long windowNanos;
+    
+    private volatile double limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    
+    private final LongAdder windowRttNanos = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final AtomicInteger windowMaxInFlight = new AtomicInteger();
+    private final AtomicBoolean windowOverloaded = new AtomicBoolean();
+    private volatile long windowStart = System.nanoTime();
+    
+    // Written only under updateLock; volatile so the gauges can read them
+    private final ReentrantLock updateLock = new ReentrantLock();
+    private volatile double longRttNanos;
+    private volatile double shortRttNanos;
+    
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing, long windowNanos) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.windowNanos = windowNanos;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+    
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                windowMaxInFlight.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+    
+    // sample=false releases the permit without feeding the latency (e.g. async requests whose
+    // servlet thread returned long before the response finished)
+    public void release(long rttNanos, boolean sample, boolean overloaded) {
+        inFlight.decrementAndGet();
+        if (sample) {
+            windowRttNanos.add(rttNanos);
+            windowSamples.increment();
+        }
+        if (overloaded) {
+            windowOverloaded.set(true);
+        }
+        
+        long now = System.nanoTime();
+        if (now - windowStart >= windowNanos && (windowSamples.sum() >= MIN_WINDOW_SAMPLES || windowOverloaded.get())
+                && updateLock.tryLock()) {
+            try {
+                if (now - windowStart >= windowNanos) {
+                    update(now);
+                }
+            } finally {
+                updateLock.unlock();
+            }
+        }
+    }
+    
+    private void update(long now) {
+        windowStart = now;
+        long samples = windowSamples.sumThenReset();
+        long rttSum = windowRttNanos.sumThenReset();
+        int peakInFlight = windowMaxInFlight.getAndSet(inFlight.get());
+        boolean overloaded = windowOverloaded.getAndSet(false);
+        double current = limit;
+        
+        if (overloaded) {
+            limit = Math.max(minLimit, current * BACKOFF_RATIO);
+            return;
+        }
+        if (samples == 0) {
+            return;
+        }
+        
+        double recent = (double) rttSum / samples;
+        shortRttNanos = recent;
+        if (longRttNanos == 0) {
+            longRttNanos = recent;
+        } else {
+            longRttNanos += (recent - longRttNanos) * LONG_RTT_SMOOTHING;
+            // After an overload has passed the long-term average is inflated; let it fall back quickly
+            if (longRttNanos > recent * 2) {
+                longRttNanos *= 0.95;
+            }
+        }
+        
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * longRttNanos / recent));
+        // Traffic that never came near the limit says nothing about whether a higher one is safe
+        if (gradient >= 1.0 && peakInFlight < current / 2) {
+            return;
+        }
+        double target = current * gradient + Math.sqrt(current);
+        double next = current * (1 - smoothing) + target * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+    
+    public int getLimit() {
+        return (int) limit;
+    }
+    
+    public int getInFlight() {
+        return inFlight.get();
+    }
+    
+    public double getLongRttMillis() {
+        return longRttNanos / 1_000_000.0;
+    }
+    
+    public double getShortRttMillis() {
+        return shortRttNanos / 1_000_000.0;
+    }
+}
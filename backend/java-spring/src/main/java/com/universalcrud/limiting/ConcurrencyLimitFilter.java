@@ -0,0 +1,135 @@
+package com.universalcrud.limiting;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Load shedding ahead of authentication: a request only proceeds if its route class is below its
+// adaptive concurrency limit, otherwise it gets an immediate 503 instead of queueing on a Tomcat
+// thread and the connection pool. Keeping the in-flight count near what the database sustains keeps
+// latency, and with it the rate of successful responses, flat under overload.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private Environment environment;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${app.concurrency.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.concurrency.tolerance:1.5}")
+    private double tolerance;
+    
+    @Value("${app.concurrency.smoothing:0.2}")
+    private double smoothing;
+    
+    @Value("${app.concurrency.window-ms:500}")
+    private long windowMs;
+    
+    @Value("${app.concurrency.timeout-ms:5000}")
+    private long timeoutMs;
+    
+    @Value("${app.concurrency.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+    
+    private final Map<RouteClass, AdaptiveLimiter> limiters = new EnumMap<>(RouteClass.class);
+    private final Map<RouteClass, Counter> accepted = new EnumMap<>(RouteClass.class);
+    private final Map<RouteClass, Counter> rejected = new EnumMap<>(RouteClass.class);
+    
+    @Override
+    protected void initFilterBean() {
+        for (RouteClass route : RouteClass.values()) {
+            String prefix = "app.concurrency." + route.key + ".";
+            AdaptiveLimiter limiter = new AdaptiveLimiter(
+                    environment.getProperty(prefix + "initial-limit", Integer.class, route.defaultInitialLimit),
+                    environment.getProperty(prefix + "min-limit", Integer.class, route.defaultMinLimit),
+                    environment.getProperty(prefix + "max-limit", Integer.class, route.defaultMaxLimit),
+                    tolerance, smoothing, TimeUnit.MILLISECONDS.toNanos(windowMs));
+            limiters.put(route, limiter);
+            
+            Gauge.builder("app.concurrency.limit", limiter, AdaptiveLimiter::getLimit).tag("route", route.key)
+                    .description("Current adaptive concurrency limit").register(meterRegistry);
+            Gauge.builder("app.concurrency.in-flight", limiter, AdaptiveLimiter::getInFlight).tag("route", route.key)
+                    .description("Requests currently holding a permit").register(meterRegistry);
+            Gauge.builder("app.concurrency.rtt", limiter, AdaptiveLimiter::getShortRttMillis).tag("route", route.key)
+                    .tag("window", "short").baseUnit("milliseconds").register(meterRegistry);
+            Gauge.builder("app.concurrency.rtt", limiter, AdaptiveLimiter::getLongRttMillis).tag("route", route.key)
+                    .tag("window", "long").baseUnit("milliseconds").register(meterRegistry);
+            accepted.put(route, Counter.builder("app.concurrency.requests").tag("route", route.key)
+                    .tag("outcome", "accepted").register(meterRegistry));
+            rejected.put(route, Counter.builder("app.concurrency.requests").tag("route", route.key)
+                    .tag("outcome", "rejected").register(meterRegistry));
+        }
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RouteClass route = enabled ? RouteClass.of(request) : null;
+        if (route == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        
+        AdaptiveLimiter limiter = limiters.get(route);
+        if (!limiter.tryAcquire()) {
+            rejected.get(route).increment();
+            reject(response, route);
+            return;
+        }
+        accepted.get(route).increment();
+        
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = false;
+        } finally {
+            long rtt = System.nanoTime() - start;
+            // Exceptions, timeouts and 503s mean the backend is past its capacity, not merely slower
+            boolean overloaded = failed || response.getStatus() == HttpServletResponse.SC_SERVICE_UNAVAILABLE
+                    || rtt > TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            limiter.release(rtt, !request.isAsyncStarted(), overloaded);
+        }
+    }
+    
+    private void reject(HttpServletResponse response, RouteClass route) throws IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        
+        Map<String, Object> body = new HashMap<>();
+        body.put("success", false);
+        body.put("status", HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        body.put("error", "Service Unavailable");
+        body.put("message", "Server is busy, please retry shortly");
+        body.put("route", route.key);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+}
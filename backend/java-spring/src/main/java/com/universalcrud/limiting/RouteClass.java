@@ -0,0 +1,52 @@
+package com.universalcrud.limiting;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+// Requests that compete for the same resources share one concurrency limit, so a burst of slow
+// admin aggregates or writes cannot starve catalogue reads (and the other way round)
+public enum RouteClass {
+    PUBLIC_READ("public-read", 64, 8, 160),
+    WRITE("write", 32, 4, 120),
+    ADMIN("admin", 8, 2, 16);
+    
+    private static final String[] ADMIN_PREFIXES = {
+            "/api/products/stats", "/api/products/low-stock", "/api/products/out-of-stock",
+            "/api/users", "/api/reports"
+    };
+    
+    final String key;
+    final int defaultInitialLimit;
+    final int defaultMinLimit;
+    final int defaultMaxLimit;
+    
+    RouteClass(String key, int defaultInitialLimit, int defaultMinLimit, int defaultMaxLimit) {
+        this.key = key;
+        this.defaultInitialLimit = defaultInitialLimit;
+        this.defaultMinLimit = defaultMinLimit;
+        this.defaultMaxLimit = defaultMaxLimit;
+    }
+    
+    // Returns null for requests that are never limited: CORS preflights and actuator (health probes
+    // must keep answering under overload, or the orchestrator restarts a merely busy instance)
+    static RouteClass of(HttpServletRequest request) {
+        String method = request.getMethod();
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if ("OPTIONS".equals(method) || path.startsWith("/actuator")) {
+            return null;
+        }
+        for (String prefix : ADMIN_PREFIXES) {
+            if (path.startsWith(prefix)) {
+                return ADMIN;
+            }
+        }
+        // Stock ledger reads decode history and are admin-only: /api/products/{id}/stock-history[/...]
+        if (path.startsWith("/api/products/") && path.contains("/stock-history")) {
+            return ADMIN;
+        }
+        // Login and register land here too: they are public but BCrypt makes them as costly as writes
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return WRITE;
+        }
+        return PUBLIC_READ;
+    }
+}
@@ -0,0 +1,124 @@
+package com.universalcrud.monitoring;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Collection;
+import java.util.Optional;
+
+// Emits the controller, service and repository JFR events. Each advice bails out after one
+// isEnabled() check when no recording wants the event.
+@Aspect
+@Component
+public class JfrEventAspect {
+    
+    @Around("within(com.universalcrud.controller..*) && @within(org.springframework.web.bind.annotation.RestController)")
+    public Object recordController(ProceedingJoinPoint joinPoint) throws Throwable {
+        JfrEvents.ControllerEvent event = new JfrEvents.ControllerEvent();
+        if (!event.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        event.begin();
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            event.failed = true;
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = operation(joinPoint);
+                RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+                if (attributes instanceof ServletRequestAttributes servletAttributes) {
+                    HttpServletRequest request = servletAttributes.getRequest();
+                    event.httpMethod = request.getMethod();
+                    event.path = request.getRequestURI();
+                }
+                event.commit();
+            }
+        }
+    }
+    
+    @Around("within(com.universalcrud.service.ProductService) || within(com.universalcrud.service.CategoryService) " +
+            "|| within(com.universalcrud.service.UserService)")
+    public Object recordService(ProceedingJoinPoint joinPoint) throws Throwable {
+        JfrEvents.ServiceEvent event = new JfrEvents.ServiceEvent();
+        if (!event.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        event.begin();
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            event.failed = true;
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = operation(joinPoint);
+                event.commit();
+            }
+        }
+    }
+    
+    @Around("this(org.springframework.data.repository.Repository)")
+    public Object recordRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        JfrEvents.RepositoryEvent event = new JfrEvents.RepositoryEvent();
+        if (!event.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        event.begin();
+        Object result = null;
+        try {
+            result = joinPoint.proceed();
+            return result;
+        } catch (Throwable e) {
+            event.failed = true;
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.query = repositoryName(joinPoint) + "." + joinPoint.getSignature().getName();
+                event.rows = rows(result);
+                event.commit();
+            }
+        }
+    }
+    
+    private static String operation(ProceedingJoinPoint joinPoint) {
+        return joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName();
+    }
+    
+    // The join point is declared on CrudRepository etc. for inherited methods; name the application interface instead
+    private static String repositoryName(ProceedingJoinPoint joinPoint) {
+        for (Class<?> type : joinPoint.getThis().getClass().getInterfaces()) {
+            if (type.getName().startsWith("com.universalcrud.")) {
+                return type.getSimpleName();
+            }
+        }
+        return joinPoint.getSignature().getDeclaringType().getSimpleName();
+    }
+    
+    private static int rows(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (result == null) {
+            return 0;
+        }
+        return result.getClass().getName().startsWith("com.universalcrud.entity.") ? 1 : -1;
+    }
+}
@@ -0,0 +1,86 @@
+package com.universalcrud.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Custom Flight Recorder events, shown under "Universal CRUD" in JMC. Durations come from begin()/commit().
+// Stack traces are off: the operation name already says where the time went, and traces cost allocation.
+// Callers check isEnabled() first, so with no recording running an event is an escape-analysed no-op.
+public final class JfrEvents {
+    
+    private JfrEvents() {
+    }
+    
+    @Name("com.universalcrud.Controller")
+    @Label("Controller Invocation")
+    @Category({"Universal CRUD", "Web"})
+    @StackTrace(false)
+    public static class ControllerEvent extends Event {
+        @Label("Operation")
+        public String operation;
+        
+        @Label("HTTP Method")
+        public String httpMethod;
+        
+        @Label("Path")
+        public String path;
+        
+        @Label("Failed")
+        public boolean failed;
+    }
+    
+    @Name("com.universalcrud.Service")
+    @Label("Service Method")
+    @Category({"Universal CRUD", "Service"})
+    @StackTrace(false)
+    public static class ServiceEvent extends Event {
+        @Label("Operation")
+        public String operation;
+        
+        @Label("Failed")
+        public boolean failed;
+    }
+    
+    @Name("com.universalcrud.Repository")
+    @Label("Repository Query")
+    @Category({"Universal CRUD", "Persistence"})
+    @StackTrace(false)
+    public static class RepositoryEvent extends Event {
+        @Label("Query")
+        @Description("Repository interface and method")
+        public String query;
+        
+        @Label("Rows")
+        @Description("Rows returned, -1 for scalar or streamed results")
+        public int rows;
+        
+        @Label("Failed")
+        public boolean failed;
+    }
+    
+    @Name("com.universalcrud.JwtValidation")
+    @Label("JWT Validation")
+    @Category({"Universal CRUD", "Security"})
+    @StackTrace(false)
+    public static class JwtValidationEvent extends Event {
+        @Label("Valid")
+        public boolean valid;
+    }
+    
+    @Name("com.universalcrud.PasswordHash")
+    @Label("Password Hash")
+    @Category({"Universal CRUD", "Security"})
+    @StackTrace(false)
+    public static class PasswordHashEvent extends Event {
+        @Label("Operation")
+        @Description("encode or matches")
+        public String operation;
+        
+        @Label("Matched")
+        public boolean matched;
+    }
+}
@@ -0,0 +1,203 @@
+package com.universalcrud.monitoring;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// /actuator/jfr (admin only, see WebSecurityConfig):
+//   GET              list recordings started here
+//   POST             start one: {"settings": "profile", "durationSeconds": 300, "maxSizeMb": 100}
+//   DELETE /{id}     stop it; the .jfr file is written to app.jfr.dump-dir
+//   GET /{id}        download the file of a stopped recording
+// A recording that reaches its duration stops by itself and writes the same file.
+@Component
+@Endpoint(id = "jfr")
+public class JfrRecordingEndpoint {
+    
+    private static final Logger logger = LoggerFactory.getLogger(JfrRecordingEndpoint.class);
+    
+    private static final String NAME_PREFIX = "universal-crud-";
+    
+    @Value("${app.jfr.dump-dir:${java.io.tmpdir}/universal-crud/jfr}")
+    private String dumpDir;
+    
+    @Value("${app.jfr.max-duration-seconds:3600}")
+    private long maxDurationSeconds;
+    
+    @ReadOperation
+    public List<Map<String, Object>> recordings() throws IOException {
+        List<Map<String, Object>> recordings = new ArrayList<>();
+        for (Recording recording : ownRecordings()) {
+            // Stopped ones are listed from their files below
+            if (recording.getState() != RecordingState.STOPPED) {
+                recordings.add(describe(recording));
+            }
+        }
+        
+        Path dir = Paths.get(dumpDir).toAbsolutePath();
+        if (Files.isDirectory(dir)) {
+            try (Stream<Path> files = Files.list(dir)) {
+                files.filter(file -> file.getFileName().toString().matches("recording-\\d+\\.jfr"))
+                        .sorted()
+                        .forEach(file -> {
+                            String name = file.getFileName().toString();
+                            Map<String, Object> info = new LinkedHashMap<>();
+                            info.put("id", Long.parseLong(name.substring("recording-".length(), name.length() - ".jfr".length())));
+                            info.put("state", "STOPPED");
+                            info.put("size", file.toFile().length());
+                            info.put("downloadable", true);
+                            recordings.add(info);
+                        });
+            }
+        }
+        return recordings;
+    }
+    
+    @WriteOperation
+    public WebEndpointResponse<Map<String, Object>> start(@Nullable String settings, @Nullable Long durationSeconds,
+                                                          @Nullable Long maxSizeMb) {
+        if (!FlightRecorder.isAvailable()) {
+            return new WebEndpointResponse<>(Map.of("message", "Flight Recorder is not available in this JVM"),
+                    WebEndpointResponse.STATUS_SERVICE_UNAVAILABLE);
+        }
+        
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settings != null ? settings : "profile");
+        } catch (IOException | ParseException e) {
+            return new WebEndpointResponse<>(Map.of("message", "Unknown JFR settings: " + settings),
+                    WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        
+        Recording recording = new Recording(configuration);
+        recording.setName(NAME_PREFIX + System.currentTimeMillis());
+        recording.setToDisk(true);
+        try {
+            Path file = dumpFile(recording.getId());
+            Files.createDirectories(file.getParent());
+            recording.setDestination(file);
+        } catch (IOException e) {
+            recording.close();
+            return new WebEndpointResponse<>(Map.of("message", "Cannot write to " + dumpDir + ": " + e.getMessage()),
+                    WebEndpointResponse.STATUS_INTERNAL_SERVER_ERROR);
+        }
+        // Never leave an unbounded recording behind if nobody comes back to stop it
+        long duration = durationSeconds != null ? Math.min(durationSeconds, maxDurationSeconds) : maxDurationSeconds;
+        recording.setDuration(Duration.ofSeconds(duration));
+        if (maxSizeMb != null) {
+            recording.setMaxSize(maxSizeMb * 1024 * 1024);
+        }
+        for (Class<?> event : JfrEvents.class.getDeclaredClasses()) {
+            recording.enable(event.getName()).withThreshold(Duration.ZERO);
+        }
+        recording.start();
+        logger.info("Started JFR recording {} ({} settings, {} s)", recording.getId(), configuration.getName(), duration);
+        return new WebEndpointResponse<>(describe(recording), WebEndpointResponse.STATUS_OK);
+    }
+    
+    @DeleteOperation
+    public WebEndpointResponse<Map<String, Object>> stop(@Selector long id) {
+        Recording recording = find(id);
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        // stop() writes the destination file
+        if (recording.getState() == RecordingState.RUNNING || recording.getState() == RecordingState.DELAYED) {
+            recording.stop();
+        }
+        Map<String, Object> info = describe(recording);
+        recording.close();
+        logger.info("Stopped JFR recording {}, written to {}", id, dumpFile(id));
+        return new WebEndpointResponse<>(info, WebEndpointResponse.STATUS_OK);
+    }
+    
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> download(@Selector long id) {
+        Recording recording = find(id);
+        Path file = dumpFile(id);
+        if (recording != null && (recording.getState() == RecordingState.RUNNING || recording.getState() == RecordingState.DELAYED)) {
+            // Still running: stop it first so the file is complete
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        if (!Files.isRegularFile(file)) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        return new WebEndpointResponse<>(new FileSystemResource(file), WebEndpointResponse.STATUS_OK);
+    }
+    
+    // A recording that stopped on its own after its duration has written its file; release its
+    // repository chunks. Kept out of the GET so listing has no side effects.
+    @Scheduled(initialDelayString = "${app.jfr.sweep-interval-ms:60000}", fixedDelayString = "${app.jfr.sweep-interval-ms:60000}")
+    public void closeStoppedRecordings() {
+        for (Recording recording : ownRecordings()) {
+            if (recording.getState() == RecordingState.STOPPED) {
+                recording.close();
+                logger.debug("Closed JFR recording {} after it stopped, written to {}", recording.getId(), dumpFile(recording.getId()));
+            }
+        }
+    }
+    
+    private List<Recording> ownRecordings() {
+        List<Recording> recordings = new ArrayList<>();
+        if (FlightRecorder.isAvailable()) {
+            for (Recording recording : FlightRecorder.getFlightRecorder().getRecordings()) {
+                if (recording.getName().startsWith(NAME_PREFIX)) {
+                    recordings.add(recording);
+                }
+            }
+        }
+        return recordings;
+    }
+    
+    private Recording find(long id) {
+        for (Recording recording : ownRecordings()) {
+            if (recording.getId() == id) {
+                return recording;
+            }
+        }
+        return null;
+    }
+    
+    private Path dumpFile(long id) {
+        return Paths.get(dumpDir).toAbsolutePath().resolve("recording-" + id + ".jfr");
+    }
+    
+    private Map<String, Object> describe(Recording recording) {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("id", recording.getId());
+        info.put("name", recording.getName());
+        info.put("state", recording.getState().name());
+        info.put("startTime", recording.getStartTime());
+        info.put("duration", recording.getDuration() != null ? recording.getDuration().toSeconds() : null);
+        info.put("size", recording.getSize());
+        info.put("downloadable", Files.isRegularFile(dumpFile(recording.getId())));
+        return info;
+    }
+}
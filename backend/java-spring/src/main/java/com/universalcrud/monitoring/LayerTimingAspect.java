@@ -0,0 +1,36 @@
+package com.universalcrud.monitoring;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+// Times controller, service and repository calls into the current RequestTiming; a no-op outside a request
+@Aspect
+@Component
+public class LayerTimingAspect {
+    
+    @Around("within(com.universalcrud.controller..*) && @within(org.springframework.web.bind.annotation.RestController)")
+    public Object timeController(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(RequestTiming.Layer.CTRL, joinPoint);
+    }
+    
+    @Around("within(com.universalcrud.service..*) && @within(org.springframework.stereotype.Service)")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(RequestTiming.Layer.SVC, joinPoint);
+    }
+    
+    @Around("this(org.springframework.data.repository.Repository)")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(RequestTiming.Layer.DB, joinPoint);
+    }
+    
+    private Object time(RequestTiming.Layer layer, ProceedingJoinPoint joinPoint) throws Throwable {
+        long token = RequestTiming.begin(layer);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            RequestTiming.end(layer, token);
+        }
+    }
+}
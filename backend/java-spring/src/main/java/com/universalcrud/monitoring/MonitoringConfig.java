@@ -0,0 +1,15 @@
+package com.universalcrud.monitoring;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MonitoringConfig {
+    
+    // Replaces Boot's default Jackson converter (it backs off when one of this type is present)
+    @Bean
+    public TimingJacksonHttpMessageConverter timingJacksonHttpMessageConverter(ObjectMapper objectMapper) {
+        return new TimingJacksonHttpMessageConverter(objectMapper);
+    }
+}
@@ -0,0 +1,137 @@
+package com.universalcrud.monitoring;
+
+import java.util.Locale;
+import java.util.function.BooleanSupplier;
+
+// Per-request span totals by layer, kept in a ThreadLocal for the request thread. Only the outermost
+// span of a layer is timed, so a service calling another service isn't counted twice; layers nest
+// (svc includes its db calls), which is how Server-Timing entries are normally read.
+public final class RequestTiming {
+    
+    public enum Layer {
+        AUTH("auth", "JWT authentication"),
+        HASH("hash", "Password hashing"),
+        CTRL("ctrl", "Controller"),
+        SVC("svc", "Service"),
+        DB("db", "Repository"),
+        SER("ser", "JSON serialization");
+        
+        private final String metric;
+        private final String description;
+        
+        Layer(String metric, String description) {
+            this.metric = metric;
+            this.description = description;
+        }
+        
+        public String metric() {
+            return metric;
+        }
+    }
+    
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+    private static final long NESTED = Long.MIN_VALUE + 1;
+    private static final int LAYERS = Layer.values().length;
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+    
+    private final long startNanos = System.nanoTime();
+    private final long[] nanos = new long[LAYERS];
+    private final int[] counts = new int[LAYERS];
+    private final int[] depth = new int[LAYERS];
+    private final BooleanSupplier exposePolicy;
+    private Boolean expose;
+    private boolean headerWritten;
+    
+    private RequestTiming(BooleanSupplier exposePolicy) {
+        this.exposePolicy = exposePolicy;
+    }
+    
+    static RequestTiming start(BooleanSupplier exposePolicy) {
+        RequestTiming timing = new RequestTiming(exposePolicy);
+        CURRENT.set(timing);
+        return timing;
+    }
+    
+    static void clear() {
+        CURRENT.remove();
+    }
+    
+    public static RequestTiming current() {
+        return CURRENT.get();
+    }
+    
+    // Returns a token for end(); a no-op pair when no request is being timed
+    public static long begin(Layer layer) {
+        RequestTiming timing = CURRENT.get();
+        if (timing == null) {
+            return NOT_TIMED;
+        }
+        return timing.depth[layer.ordinal()]++ == 0 ? System.nanoTime() : NESTED;
+    }
+    
+    public static void end(Layer layer, long token) {
+        if (token == NOT_TIMED) {
+            return;
+        }
+        RequestTiming timing = CURRENT.get();
+        if (timing == null) {
+            return;
+        }
+        int i = layer.ordinal();
+        timing.depth[i]--;
+        if (token != NESTED) {
+            timing.nanos[i] += System.nanoTime() - token;
+            timing.counts[i]++;
+        }
+    }
+    
+    public double millis(Layer layer) {
+        return nanos[layer.ordinal()] / 1_000_000.0;
+    }
+    
+    public int count(Layer layer) {
+        return counts[layer.ordinal()];
+    }
+    
+    public double totalMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000.0;
+    }
+    
+    // Decided once, on first use, so the role check sees the authenticated user
+    boolean shouldExpose() {
+        if (expose == null) {
+            expose = exposePolicy.getAsBoolean();
+        }
+        return expose;
+    }
+    
+    boolean isHeaderWritten() {
+        return headerWritten;
+    }
+    
+    void markHeaderWritten() {
+        headerWritten = true;
+    }
+    
+    // e.g. auth;dur=1.2;desc="JWT authentication", db;dur=8.4;desc="Repository (3 calls)", total;dur=15.0
+    String toHeaderValue() {
+        StringBuilder header = new StringBuilder();
+        for (Layer layer : Layer.values()) {
+            int count = counts[layer.ordinal()];
+            if (count == 0) {
+                continue;
+            }
+            header.append(layer.metric).append(";dur=").append(format(millis(layer)))
+                    .append(";desc=\"").append(layer.description);
+            if (count > 1) {
+                header.append(" (").append(count).append(" calls)");
+            }
+            header.append("\", ");
+        }
+        return header.append("total;dur=").append(format(totalMillis())).toString();
+    }
+    
+    private static String format(double millis) {
+        return String.format(Locale.ROOT, "%.1f", millis);
+    }
+}
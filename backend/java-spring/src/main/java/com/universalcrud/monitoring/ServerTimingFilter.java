@@ -0,0 +1,126 @@
+package com.universalcrud.monitoring;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Outermost timing scope, ahead of the Spring Security chain. Every request is timed (a handful of
+// nanoTime calls); the Server-Timing header is only sent when the caller opts in with a request
+// header or holds one of the configured roles. Slow requests are sampled to a structured log line.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class ServerTimingFilter extends OncePerRequestFilter {
+    
+    static final String HEADER = "Server-Timing";
+    
+    private static final Logger slowRequests = LoggerFactory.getLogger("com.universalcrud.monitoring.SlowRequests");
+    
+    @Value("${app.server-timing.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.server-timing.opt-in-header:X-Server-Timing}")
+    private String optInHeader;
+    
+    @Value("${app.server-timing.roles:ADMIN}")
+    private String roles;
+    
+    @Value("${app.server-timing.slow-threshold-ms:1000}")
+    private long slowThresholdMs;
+    
+    @Value("${app.server-timing.slow-sample-rate:1.0}")
+    private double slowSampleRate;
+    
+    private Set<String> exposeAuthorities;
+    
+    @Override
+    protected void initFilterBean() {
+        exposeAuthorities = Stream.of(roles.split(","))
+                .map(String::trim)
+                .filter(role -> !role.isEmpty())
+                .map(role -> "ROLE_" + role.toUpperCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!enabled) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        
+        boolean requested = isOptedIn(request);
+        RequestTiming timing = RequestTiming.start(() -> requested || hasExposeRole());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestTiming.clear();
+            // JSON bodies get the header from the converter; this covers bodiless and non-JSON responses
+            if (!timing.isHeaderWritten() && !response.isCommitted() && timing.shouldExpose()) {
+                writeHeader(response, timing);
+            }
+            logIfSlow(request, response, timing);
+        }
+    }
+    
+    static void writeHeader(HttpServletResponse response, RequestTiming timing) {
+        response.setHeader(HEADER, timing.toHeaderValue());
+        response.setHeader("Timing-Allow-Origin", "*");
+        timing.markHeaderWritten();
+    }
+    
+    private boolean isOptedIn(HttpServletRequest request) {
+        String value = request.getHeader(optInHeader);
+        return value != null && !"false".equalsIgnoreCase(value) && !"0".equals(value);
+    }
+    
+    private boolean hasExposeRole() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || exposeAuthorities.isEmpty()) {
+            return false;
+        }
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            if (exposeAuthorities.contains(authority.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private void logIfSlow(HttpServletRequest request, HttpServletResponse response, RequestTiming timing) {
+        double total = timing.totalMillis();
+        if (total < slowThresholdMs || ThreadLocalRandom.current().nextDouble() >= slowSampleRate) {
+            return;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        StringBuilder line = new StringBuilder("slow_request")
+                .append(" method=").append(request.getMethod())
+                .append(" path=").append(request.getRequestURI())
+                .append(" status=").append(response.getStatus())
+                .append(" user=").append(authentication != null ? authentication.getName() : "-")
+                .append(" total_ms=").append(String.format(Locale.ROOT, "%.1f", total));
+        for (RequestTiming.Layer layer : RequestTiming.Layer.values()) {
+            line.append(' ').append(layer.metric()).append("_ms=").append(String.format(Locale.ROOT, "%.1f", timing.millis(layer)))
+                    .append(' ').append(layer.metric()).append("_calls=").append(timing.count(layer));
+        }
+        slowRequests.warn(line.toString());
+    }
+}
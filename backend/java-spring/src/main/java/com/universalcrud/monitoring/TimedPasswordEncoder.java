@@ -0,0 +1,60 @@
+package com.universalcrud.monitoring;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+// Attributes BCrypt work (login, registration, password changes) to its own Server-Timing span
+// and records it as a JFR event
+public class TimedPasswordEncoder implements PasswordEncoder {
+    
+    private final PasswordEncoder delegate;
+    
+    public TimedPasswordEncoder(PasswordEncoder delegate) {
+        this.delegate = delegate;
+    }
+    
+    @Override
+    public String encode(CharSequence rawPassword) {
+        JfrEvents.PasswordHashEvent event = new JfrEvents.PasswordHashEvent();
+        boolean recording = event.isEnabled();
+        if (recording) {
+            event.begin();
+        }
+        long token = RequestTiming.begin(RequestTiming.Layer.HASH);
+        try {
+            return delegate.encode(rawPassword);
+        } finally {
+            RequestTiming.end(RequestTiming.Layer.HASH, token);
+            if (recording) {
+                event.operation = "encode";
+                event.commit();
+            }
+        }
+    }
+    
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        JfrEvents.PasswordHashEvent event = new JfrEvents.PasswordHashEvent();
+        boolean recording = event.isEnabled();
+        if (recording) {
+            event.begin();
+        }
+        long token = RequestTiming.begin(RequestTiming.Layer.HASH);
+        boolean matched = false;
+        try {
+            matched = delegate.matches(rawPassword, encodedPassword);
+            return matched;
+        } finally {
+            RequestTiming.end(RequestTiming.Layer.HASH, token);
+            if (recording) {
+                event.operation = "matches";
+                event.matched = matched;
+                event.commit();
+            }
+        }
+    }
+    
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
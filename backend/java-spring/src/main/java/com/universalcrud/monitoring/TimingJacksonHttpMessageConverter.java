@@ -0,0 +1,66 @@
+package com.universalcrud.monitoring;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+// Times serialization (including any lazy loading it triggers) of every timed request. Only when the
+// Server-Timing header will be sent is the body buffered, so the span is known before the first byte
+// commits the response and its headers; everything else streams straight to the response.
+public class TimingJacksonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+    
+    public TimingJacksonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+    
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        RequestTiming timing = RequestTiming.current();
+        if (timing == null || timing.isHeaderWritten()) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+        if (!timing.shouldExpose()) {
+            long token = RequestTiming.begin(RequestTiming.Layer.SER);
+            try {
+                super.writeInternal(object, type, outputMessage);
+            } finally {
+                RequestTiming.end(RequestTiming.Layer.SER, token);
+            }
+            return;
+        }
+        
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(8192);
+        long token = RequestTiming.begin(RequestTiming.Layer.SER);
+        try {
+            super.writeInternal(object, type, new HttpOutputMessage() {
+                @Override
+                public OutputStream getBody() {
+                    return buffer;
+                }
+                
+                @Override
+                public HttpHeaders getHeaders() {
+                    return outputMessage.getHeaders();
+                }
+            });
+        } finally {
+            RequestTiming.end(RequestTiming.Layer.SER, token);
+        }
+        
+        HttpHeaders headers = outputMessage.getHeaders();
+        headers.set(ServerTimingFilter.HEADER, timing.toHeaderValue());
+        headers.set("Timing-Allow-Origin", "*");
+        timing.markHeaderWritten();
+        headers.setContentLength(buffer.size());
+        buffer.writeTo(outputMessage.getBody());
+    }
+}
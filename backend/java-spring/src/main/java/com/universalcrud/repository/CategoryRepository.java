@@ -1,6 +1,9 @@
 package com.universalcrud.repository;
 
+import com.universalcrud.dto.CategorySummary;
 import com.universalcrud.entity.Category;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -16,14 +19,19 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     
     boolean existsByName(String name);
     
-    @Query("SELECT c FROM Category c WHERE c.name LIKE %:name%")
-    List<Category> findByNameContaining(@Param("name") String name);
+    @Query("SELECT c.name FROM Category c")
+    List<String> findAllNames();
     
-    @Query("SELECT c FROM Category c LEFT JOIN FETCH c.products")
-    List<Category> findAllWithProducts();
+    @Query("SELECT c FROM Category c WHERE c.name LIKE %:name%")
+    Page<Category> findByNameContaining(@Param("name") String name, Pageable pageable);
     
-    @Query("SELECT c FROM Category c LEFT JOIN FETCH c.products WHERE c.id = :id")
-    Optional<Category> findByIdWithProducts(@Param("id") Long id);
+    @Query(value = "SELECT new com.universalcrud.dto.CategorySummary(c.id, c.name, c.description, c.createdAt, c.updatedAt, " +
+           "SUM(CASE WHEN p.isActive = true THEN 1 ELSE 0 END), COUNT(p), " +
+           "SUM(CASE WHEN p.isActive = true THEN p.price * p.quantity ELSE 0 END)) " +
+           "FROM Category c LEFT JOIN c.products p " +
+           "GROUP BY c.id, c.name, c.description, c.createdAt, c.updatedAt",
+           countQuery = "SELECT COUNT(c) FROM Category c")
+    Page<CategorySummary> findAllSummaries(Pageable pageable);
     
     @Query("SELECT COUNT(p) FROM Product p WHERE p.category.id = :categoryId")
     long countProductsByCategoryId(@Param("categoryId") Long categoryId);
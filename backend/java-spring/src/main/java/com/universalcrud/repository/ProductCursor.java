@@ -0,0 +1,28 @@
+package com.universalcrud.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Opaque position in a keyset-paged product listing: the sort it was issued for plus the sort key and id
+// of the last row returned. The value goes last because names may contain the separator.
+public record ProductCursor(ProductSort sort, boolean descending, Long id, String value) {
+    
+    public String encode() {
+        String raw = sort.getAttribute() + '|' + (descending ? "desc" : "asc") + '|' + id + '|' + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public static ProductCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 4);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return new ProductCursor(ProductSort.fromAttribute(parts[0]), parts[1].equals("desc"),
+                    Long.valueOf(parts[2]), parts[3]);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+    }
+}
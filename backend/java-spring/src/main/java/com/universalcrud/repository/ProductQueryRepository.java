@@ -0,0 +1,18 @@
+package com.universalcrud.repository;
+
+import com.universalcrud.dto.ProductFacets;
+import com.universalcrud.entity.Product;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface ProductQueryRepository {
+    
+    // Up to limit products matching spec ordered by (sort key, id), with category and creator fetched
+    List<Product> findSlice(Specification<Product> spec, ProductSort sort, boolean descending, int limit);
+    
+    // Category, price bucket and stock counts of every product matching spec, in one grouped query.
+    // priceBounds are the ascending upper bounds of all but the last bucket.
+    ProductFacets countFacets(Specification<Product> spec, List<BigDecimal> priceBounds);
+}
@@ -0,0 +1,111 @@
+package com.universalcrud.repository;
+
+import com.universalcrud.dto.ProductFacets;
+import com.universalcrud.entity.Category;
+import com.universalcrud.entity.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Criteria queries the derived and @Query methods can't express. Spring Data's specification executor
+// always pairs a page with a COUNT query; keyset slices only need LIMIT n + 1.
+public class ProductQueryRepositoryImpl implements ProductQueryRepository {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public List<Product> findSlice(Specification<Product> spec, ProductSort sort, boolean descending, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Product> query = cb.createQuery(Product.class);
+        Root<Product> root = query.from(Product.class);
+        root.fetch("category", JoinType.LEFT);
+        root.fetch("createdBy", JoinType.LEFT);
+        
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (descending) {
+            query.orderBy(cb.desc(root.get(sort.getAttribute())), cb.desc(root.get("id")));
+        } else {
+            query.orderBy(cb.asc(root.get(sort.getAttribute())), cb.asc(root.get("id")));
+        }
+        return entityManager.createQuery(query.select(root)).setMaxResults(limit).getResultList();
+    }
+    
+    // One row per category carrying conditional sums for the stock and price facets, so all three
+    // facets come out of a single scan. The CASE expressions sit inside aggregates only, which keeps
+    // the GROUP BY valid on every supported database.
+    @Override
+    public ProductFacets countFacets(Specification<Product> spec, List<BigDecimal> priceBounds) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Product> root = query.from(Product.class);
+        Join<Product, Category> category = root.join("category", JoinType.LEFT);
+        
+        List<Selection<?>> columns = new ArrayList<>();
+        columns.add(category.get("id"));
+        columns.add(category.get("name"));
+        columns.add(cb.count(root));
+        columns.add(countWhere(cb, cb.greaterThan(root.get("quantity"), 0)));
+        Expression<BigDecimal> price = root.get("price");
+        for (int i = 0; i <= priceBounds.size(); i++) {
+            Predicate inBucket = i < priceBounds.size() ? cb.lessThan(price, priceBounds.get(i)) : cb.conjunction();
+            if (i > 0) {
+                inBucket = cb.and(cb.greaterThanOrEqualTo(price, priceBounds.get(i - 1)), inBucket);
+            }
+            columns.add(countWhere(cb, inBucket));
+        }
+        
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.multiselect(columns).groupBy(category.get("id"), category.get("name"));
+        
+        long total = 0;
+        long inStock = 0;
+        long[] bucketCounts = new long[priceBounds.size() + 1];
+        List<ProductFacets.CategoryCount> categories = new ArrayList<>();
+        for (Object[] row : entityManager.createQuery(query).getResultList()) {
+            long count = toLong(row[2]);
+            total += count;
+            inStock += toLong(row[3]);
+            for (int i = 0; i < bucketCounts.length; i++) {
+                bucketCounts[i] += toLong(row[4 + i]);
+            }
+            categories.add(new ProductFacets.CategoryCount((Long) row[0], (String) row[1], count));
+        }
+        categories.sort(Comparator.comparingLong(ProductFacets.CategoryCount::count).reversed());
+        
+        List<ProductFacets.PriceBucket> priceBuckets = new ArrayList<>(bucketCounts.length);
+        for (int i = 0; i < bucketCounts.length; i++) {
+            BigDecimal min = i > 0 ? priceBounds.get(i - 1) : BigDecimal.ZERO;
+            BigDecimal max = i < priceBounds.size() ? priceBounds.get(i) : null;
+            priceBuckets.add(new ProductFacets.PriceBucket(min, max, bucketCounts[i]));
+        }
+        return new ProductFacets(total, categories, priceBuckets, inStock, total - inStock);
+    }
+    
+    private static Expression<Long> countWhere(CriteriaBuilder cb, Predicate condition) {
+        return cb.sum(cb.<Long>selectCase().when(condition, cb.literal(1L)).otherwise(cb.literal(0L)));
+    }
+    
+    private static long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+}
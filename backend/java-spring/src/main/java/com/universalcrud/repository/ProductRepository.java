@@ -1,56 +1,111 @@
 package com.universalcrud.repository;
 
+import com.universalcrud.dto.StockRow;
 import com.universalcrud.entity.Product;
 import com.universalcrud.entity.Category;
 import com.universalcrud.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductQueryRepository {
     
-    List<Product> findByCategory(Category category);
+    // Products leave the service layer with category and creator loaded; nothing is fetched during rendering
+    @EntityGraph(attributePaths = {"category", "createdBy"})
+    Page<Product> findAll(Pageable pageable);
     
-    List<Product> findByCategoryId(Long categoryId);
+    @EntityGraph(attributePaths = {"category", "createdBy"})
+    Page<Product> findByCategory(Category category, Pageable pageable);
     
-    List<Product> findByCreatedBy(User createdBy);
+    @EntityGraph(attributePaths = {"category", "createdBy"})
+    Page<Product> findByCategoryId(Long categoryId, Pageable pageable);
     
-    List<Product> findByIsActive(Boolean isActive);
+    @EntityGraph(attributePaths = {"category", "createdBy"})
+    Page<Product> findByCreatedBy(User createdBy, Pageable pageable);
     
+    @EntityGraph(attributePaths = {"category", "createdBy"})
+    Page<Product> findByIsActive(Boolean isActive, Pageable pageable);
+    
+    @EntityGraph(attributePaths = {"category", "createdBy"})
     Optional<Product> findBySku(String sku);
     
     boolean existsBySku(String sku);
     
+    @Query("SELECT u.username FROM Product p JOIN p.createdBy u WHERE p.id = :id")
+    Optional<String> findOwnerUsernameById(@Param("id") Long id);
+    
+    @Query("SELECT p.sku FROM Product p WHERE p.sku IS NOT NULL")
+    List<String> findAllSkus();
+    
+    @EntityGraph(attributePaths = {"category", "createdBy"})
     @Query("SELECT p FROM Product p WHERE p.name LIKE %:name%")
-    List<Product> findByNameContaining(@Param("name") String name);
+    Page<Product> findByNameContaining(@Param("name") String name, Pageable pageable);
     
+    @EntityGraph(attributePaths = {"category", "createdBy"})
     @Query("SELECT p FROM Product p WHERE p.price BETWEEN :minPrice AND :maxPrice")
-    List<Product> findByPriceBetween(@Param("minPrice") BigDecimal minPrice, @Param("maxPrice") BigDecimal maxPrice);
+    Page<Product> findByPriceBetween(@Param("minPrice") BigDecimal minPrice, @Param("maxPrice") BigDecimal maxPrice, Pageable pageable);
     
+    @EntityGraph(attributePaths = {"category", "createdBy"})
     @Query("SELECT p FROM Product p WHERE p.quantity < :threshold")
-    List<Product> findLowStockProducts(@Param("threshold") Integer threshold);
+    Page<Product> findLowStockProducts(@Param("threshold") Integer threshold, Pageable pageable);
     
+    @EntityGraph(attributePaths = {"category", "createdBy"})
     @Query("SELECT p FROM Product p WHERE p.quantity = 0")
-    List<Product> findOutOfStockProducts();
+    Page<Product> findOutOfStockProducts(Pageable pageable);
+    
+    @Query("SELECT p.id, p.price, p.quantity FROM Product p WHERE p.isActive = true")
+    List<Object[]> findActiveProductStockKeys();
+    
+    @Query("SELECT p.id, p.price, p.quantity, p.isActive FROM Product p WHERE p.updatedAt >= :since")
+    List<Object[]> findStockKeysUpdatedSince(@Param("since") LocalDateTime since);
     
-    @Query("SELECT p FROM Product p JOIN FETCH p.category WHERE p.isActive = true")
-    List<Product> findActiveProductsWithCategory();
+    @Query("SELECT p.id, p.price, p.quantity, p.isActive FROM Product p WHERE p.id IN :ids")
+    List<Object[]> findStockKeysByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT p.id FROM Product p WHERE p.isActive = true")
+    List<Long> findActiveProductIds();
+    
+    @Query(value = "SELECT p FROM Product p JOIN FETCH p.category LEFT JOIN FETCH p.createdBy WHERE p.isActive = true",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.isActive = true")
+    Page<Product> findActiveProductsWithCategory(Pageable pageable);
     
     @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.createdBy WHERE p.id = :id")
     Optional<Product> findByIdWithDetails(@Param("id") Long id);
     
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.createdBy WHERE p.id IN :ids")
+    List<Product> findAllWithDetailsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Newest N active products of each category, ranked in the database so only N rows per category leave it
+    @Query(value = "SELECT ranked.id FROM (" +
+                   "SELECT p.id, p.category_id, p.created_at, " +
+                   "ROW_NUMBER() OVER (PARTITION BY p.category_id ORDER BY p.created_at DESC, p.id DESC) AS row_num " +
+                   "FROM products p WHERE p.is_active = true AND p.category_id IN (:categoryIds)) ranked " +
+                   "WHERE ranked.row_num <= :limit",
+           nativeQuery = true)
+    List<Number> findTopActiveProductIdsPerCategory(@Param("categoryIds") Collection<Long> categoryIds, @Param("limit") int limit);
+    
+    @EntityGraph(attributePaths = {"category", "createdBy"})
     Page<Product> findByIsActiveOrderByCreatedAtDesc(Boolean isActive, Pageable pageable);
     
+    @EntityGraph(attributePaths = {"category", "createdBy"})
     Page<Product> findByCategoryIdAndIsActiveOrderByCreatedAtDesc(Long categoryId, Boolean isActive, Pageable pageable);
     
+    @EntityGraph(attributePaths = {"category", "createdBy"})
     @Query("SELECT p FROM Product p WHERE p.isActive = true AND " +
            "(p.name LIKE %:searchTerm% OR p.description LIKE %:searchTerm% OR p.sku LIKE %:searchTerm%)")
     Page<Product> searchActiveProducts(@Param("searchTerm") String searchTerm, Pageable pageable);
@@ -60,4 +115,10 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     
     @Query("SELECT SUM(p.quantity * p.price) FROM Product p WHERE p.isActive = true")
     BigDecimal calculateTotalInventoryValue();
+    
+    // Server-side cursor for the report jobs; must be consumed inside a transaction and closed
+    @Query("SELECT new com.universalcrud.dto.StockRow(p.id, p.name, p.sku, c.id, c.name, p.price, p.quantity, p.updatedAt) " +
+           "FROM Product p LEFT JOIN p.category c WHERE p.isActive = true")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<StockRow> streamActiveStockRows();
 }
@@ -0,0 +1,67 @@
+package com.universalcrud.repository;
+
+import com.universalcrud.entity.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.function.Function;
+
+// Sort keys accepted by the product query endpoint. Each is backed by an index ending in id (see the
+// Product @Table), so ORDER BY key, id LIMIT n and the keyset predicate are both range scans.
+public enum ProductSort {
+    CREATED_AT("createdAt", Product::getCreatedAt, LocalDateTime::parse),
+    PRICE("price", Product::getPrice, BigDecimal::new),
+    QUANTITY("quantity", Product::getQuantity, Integer::valueOf),
+    NAME("name", Product::getName, value -> value),
+    ID("id", Product::getId, Long::valueOf);
+    
+    private final String attribute;
+    private final Function<Product, Comparable<?>> extractor;
+    private final Function<String, Comparable<?>> parser;
+    
+    ProductSort(String attribute, Function<Product, Comparable<?>> extractor, Function<String, Comparable<?>> parser) {
+        this.attribute = attribute;
+        this.extractor = extractor;
+        this.parser = parser;
+    }
+    
+    public String getAttribute() {
+        return attribute;
+    }
+    
+    public static ProductSort fromAttribute(String attribute) {
+        for (ProductSort sort : values()) {
+            if (sort.attribute.equalsIgnoreCase(attribute.trim())) {
+                return sort;
+            }
+        }
+        throw new IllegalArgumentException("Cannot sort products by '" + attribute + "'; use one of createdAt, price, quantity, name, id");
+    }
+    
+    // "price" or "price,desc"
+    public static boolean isDescending(String spec) {
+        String[] parts = spec.split(",");
+        if (parts.length < 2) {
+            return false;
+        }
+        String direction = parts[1].trim().toLowerCase(Locale.ROOT);
+        if (!direction.equals("asc") && !direction.equals("desc")) {
+            throw new IllegalArgumentException("Sort direction must be asc or desc, not '" + parts[1] + "'");
+        }
+        return direction.equals("desc");
+    }
+    
+    public String valueOf(Product product) {
+        Object value = extractor.apply(product);
+        return value instanceof BigDecimal decimal ? decimal.toPlainString() : String.valueOf(value);
+    }
+    
+    public Comparable<?> parse(String value) {
+        try {
+            return parser.apply(value);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Malformed cursor value for sort " + attribute);
+        }
+    }
+}
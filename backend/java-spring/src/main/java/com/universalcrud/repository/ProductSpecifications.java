@@ -0,0 +1,115 @@
+package com.universalcrud.repository;
+
+import com.universalcrud.dto.ProductQuery;
+import com.universalcrud.entity.Product;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+
+// Filters of the product query endpoint as composable Specifications. They only compare indexed
+// columns directly (no functions around them), so the database can pick an index for the combination.
+public final class ProductSpecifications {
+    
+    private ProductSpecifications() {
+    }
+    
+    public static Specification<Product> from(ProductQuery query) {
+        if (query.getMinPrice() != null && query.getMaxPrice() != null && query.getMinPrice().compareTo(query.getMaxPrice()) > 0) {
+            throw new IllegalArgumentException("minPrice must not be greater than maxPrice");
+        }
+        if (query.getMinQuantity() != null && query.getMaxQuantity() != null && query.getMinQuantity() > query.getMaxQuantity()) {
+            throw new IllegalArgumentException("minQuantity must not be greater than maxQuantity");
+        }
+        
+        Specification<Product> spec = Specification.where(null);
+        if (query.getActive() != null) {
+            spec = spec.and(isActive(query.getActive()));
+        }
+        if (query.getCategoryId() != null) {
+            spec = spec.and(inCategory(query.getCategoryId()));
+        }
+        if (query.getMinPrice() != null || query.getMaxPrice() != null) {
+            spec = spec.and(priceBetween(query.getMinPrice(), query.getMaxPrice()));
+        }
+        if (query.getMinQuantity() != null || query.getMaxQuantity() != null) {
+            spec = spec.and(quantityBetween(query.getMinQuantity(), query.getMaxQuantity()));
+        }
+        if (query.getCreatedBy() != null) {
+            spec = spec.and(createdBy(query.getCreatedBy()));
+        }
+        if (query.getQ() != null && !query.getQ().isBlank()) {
+            spec = spec.and(nameOrSku(query.getQ().trim()));
+        }
+        return spec;
+    }
+    
+    public static Specification<Product> isActive(boolean active) {
+        return (root, query, cb) -> cb.equal(root.get("isActive"), active);
+    }
+    
+    public static Specification<Product> inCategory(Long categoryId) {
+        return (root, query, cb) -> cb.equal(root.get("category").get("id"), categoryId);
+    }
+    
+    public static Specification<Product> priceBetween(BigDecimal min, BigDecimal max) {
+        return (root, query, cb) -> {
+            if (min == null) {
+                return cb.lessThanOrEqualTo(root.get("price"), max);
+            }
+            if (max == null) {
+                return cb.greaterThanOrEqualTo(root.get("price"), min);
+            }
+            return cb.between(root.get("price"), min, max);
+        };
+    }
+    
+    public static Specification<Product> quantityBetween(Integer min, Integer max) {
+        return (root, query, cb) -> {
+            if (min == null) {
+                return cb.lessThanOrEqualTo(root.get("quantity"), max);
+            }
+            if (max == null) {
+                return cb.greaterThanOrEqualTo(root.get("quantity"), min);
+            }
+            return cb.between(root.get("quantity"), min, max);
+        };
+    }
+    
+    public static Specification<Product> createdBy(Long userId) {
+        return (root, query, cb) -> cb.equal(root.get("createdBy").get("id"), userId);
+    }
+    
+    // A prefix LIKE can use the name index, unlike the %term% match of /search. '!' is the escape
+    // character because a backslash inside a string literal means something different on MySQL.
+    public static Specification<Product> nameOrSku(String text) {
+        String escaped = text.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+        return (root, query, cb) -> cb.or(
+                cb.like(root.get("name"), escaped + "%", '!'),
+                cb.equal(root.get("sku"), text));
+    }
+    
+    // Same match as ProductRepository.searchActiveProducts, for computing its facets
+    public static Specification<Product> search(String term) {
+        return (root, query, cb) -> {
+            String pattern = "%" + term + "%";
+            return cb.and(cb.isTrue(root.get("isActive")), cb.or(
+                    cb.like(root.get("name"), pattern),
+                    cb.like(root.get("description"), pattern),
+                    cb.like(root.get("sku"), pattern)));
+        };
+    }
+    
+    // Keyset continuation: rows strictly after (value, id) in ORDER BY key, id
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Product> after(ProductSort sort, boolean descending, Comparable value, Long id) {
+        return (root, query, cb) -> {
+            Expression key = root.get(sort.getAttribute());
+            Expression<Long> rowId = root.get("id");
+            Predicate beyond = descending ? cb.lessThan(key, value) : cb.greaterThan(key, value);
+            Predicate tie = cb.and(cb.equal(key, value), descending ? cb.lessThan(rowId, id) : cb.greaterThan(rowId, id));
+            return cb.or(beyond, tie);
+        };
+    }
+}
@@ -0,0 +1,42 @@
+package com.universalcrud.repository;
+
+import com.universalcrud.entity.StockLedgerEntry;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// Lookups seek on (product_id, at, id), like the segment ones
+@Repository
+public interface StockLedgerEntryRepository extends JpaRepository<StockLedgerEntry, Long> {
+    
+    // The latest movement at or before at
+    Optional<StockLedgerEntry> findFirstByProductIdAndAtLessThanEqualOrderByAtDescIdDesc(Long productId, LocalDateTime at);
+    
+    Optional<StockLedgerEntry> findFirstByProductIdAndAtLessThanOrderByAtDescIdDesc(Long productId, LocalDateTime at);
+    
+    Stream<StockLedgerEntry> streamByProductIdAndAtGreaterThanEqualAndAtLessThanOrderByAtAscIdAsc(
+            Long productId, LocalDateTime from, LocalDateTime to);
+    
+    Optional<StockLedgerEntry> findFirstByProductIdOrderByAtAscIdAsc(Long productId);
+    
+    @Query("SELECT DISTINCT e.productId FROM StockLedgerEntry e WHERE e.at < :before")
+    List<Long> findProductIdsWithEntriesBefore(@Param("before") LocalDateTime before, Pageable pageable);
+    
+    // FOR UPDATE SKIP LOCKED (lock timeout -2) where the dialect supports it, a plain FOR UPDATE elsewhere
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM StockLedgerEntry e WHERE e.productId = :productId AND e.at < :before ORDER BY e.at, e.id")
+    List<StockLedgerEntry> lockSettled(@Param("productId") Long productId, @Param("before") LocalDateTime before,
+                                       Pageable pageable);
+}
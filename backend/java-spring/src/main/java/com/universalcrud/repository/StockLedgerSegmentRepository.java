@@ -0,0 +1,49 @@
+package com.universalcrud.repository;
+
+import com.universalcrud.entity.StockLedgerSegment;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// Every lookup is a seek on (product_id, start_at); none of them reads a product's whole history
+@Repository
+public interface StockLedgerSegmentRepository extends JpaRepository<StockLedgerSegment, Long> {
+    
+    // The segment covering at, or the last one before it
+    Optional<StockLedgerSegment> findFirstByProductIdAndStartAtLessThanEqualOrderByStartAtDescEndAtDesc(
+            Long productId, LocalDateTime at);
+    
+    Optional<StockLedgerSegment> findFirstByProductIdAndStartAtLessThanOrderByStartAtDescEndAtDesc(
+            Long productId, LocalDateTime at);
+    
+    Optional<StockLedgerSegment> findFirstByProductIdOrderByStartAtDescEndAtDesc(Long productId);
+    
+    Stream<StockLedgerSegment> streamByProductIdAndStartAtGreaterThanEqualAndStartAtLessThanOrderByStartAtAscEndAtAsc(
+            Long productId, LocalDateTime from, LocalDateTime to);
+    
+    // Products with more than one segment that is both settled and short of full
+    @Query("SELECT s.productId FROM StockLedgerSegment s WHERE s.endAt < :before AND s.movementCount < :movements " +
+           "GROUP BY s.productId HAVING COUNT(s) > 1")
+    List<Long> findCompactionCandidates(@Param("before") LocalDateTime before, @Param("movements") int movements,
+                                        Pageable pageable);
+    
+    @Query("SELECT MIN(s.startAt) FROM StockLedgerSegment s WHERE s.productId = :productId " +
+           "AND s.endAt < :before AND s.movementCount < :movements")
+    LocalDateTime findFirstCompactableStart(@Param("productId") Long productId, @Param("before") LocalDateTime before,
+                                            @Param("movements") int movements);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM StockLedgerSegment s WHERE s.productId = :productId AND s.startAt >= :from " +
+           "AND s.endAt < :before ORDER BY s.startAt, s.endAt")
+    List<StockLedgerSegment> lockCompactable(@Param("productId") Long productId, @Param("from") LocalDateTime from,
+                                             @Param("before") LocalDateTime before);
+}
@@ -1,6 +1,8 @@
 package com.universalcrud.repository;
 
 import com.universalcrud.entity.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -20,13 +22,28 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     boolean existsByEmail(String email);
     
-    List<User> findByRole(User.Role role);
+    @Query("SELECT u.username FROM User u WHERE u.id = :id")
+    Optional<String> findUsernameById(@Param("id") Long id);
+    
+    @Query("SELECT u.username FROM User u")
+    List<String> findAllUsernames();
+    
+    @Query("SELECT u.username FROM User u WHERE u.username IN :usernames")
+    List<String> findExistingUsernames(@Param("usernames") List<String> usernames);
+    
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") List<String> emails);
+    
+    @Query("SELECT u.email FROM User u")
+    List<String> findAllEmails();
+    
+    Page<User> findByRole(User.Role role, Pageable pageable);
     
     @Query("SELECT u FROM User u WHERE u.firstName LIKE %:name% OR u.lastName LIKE %:name% OR u.username LIKE %:name%")
-    List<User> findByNameContaining(@Param("name") String name);
+    Page<User> findByNameContaining(@Param("name") String name, Pageable pageable);
     
     @Query("SELECT u FROM User u WHERE u.enabled = :enabled")
-    List<User> findByEnabled(@Param("enabled") boolean enabled);
+    Page<User> findByEnabled(@Param("enabled") boolean enabled, Pageable pageable);
     
     @Query("SELECT COUNT(u) FROM User u WHERE u.role = :role")
     long countByRole(@Param("role") User.Role role);
@@ -1,5 +1,6 @@
 package com.universalcrud.security;
 
+import com.universalcrud.monitoring.RequestTiming;
 import com.universalcrud.service.UserService;
 import com.universalcrud.util.JwtUtils;
 import jakarta.servlet.FilterChain;
@@ -30,6 +31,7 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
+        long timingToken = RequestTiming.begin(RequestTiming.Layer.AUTH);
         try {
             String jwt = parseJwt(request);
             if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
@@ -47,6 +49,8 @@ public class AuthTokenFilter extends OncePerRequestFilter {
             }
         } catch (Exception e) {
             logger.error("Cannot set user authentication: {}", e);
+        } finally {
+            RequestTiming.end(RequestTiming.Layer.AUTH, timingToken);
         }
         
         filterChain.doFilter(request, response);
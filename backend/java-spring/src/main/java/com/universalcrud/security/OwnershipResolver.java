@@ -0,0 +1,60 @@
+package com.universalcrud.security;
+
+import com.universalcrud.repository.ProductRepository;
+import com.universalcrud.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Optional;
+
+// Resolves the username owning a resource with a single primary-key projection query, no entity is
+// loaded. Answers are cached on the current request, so repeated permission checks of one resource
+// cost one query. The guarded service method still loads the entity itself, in its own transaction:
+// an instance loaded here would be detached by then and merging it would select the row again.
+@Component
+public class OwnershipResolver {
+    
+    public static final String PRODUCT = "product";
+    public static final String USER = "user";
+    
+    private static final String ATTRIBUTE_PREFIX = OwnershipResolver.class.getName() + ".";
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @SuppressWarnings("unchecked")
+    public Optional<String> ownerOf(String type, Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        String attribute = ATTRIBUTE_PREFIX + type + ":" + id;
+        if (attributes != null) {
+            Object cached = attributes.getAttribute(attribute, RequestAttributes.SCOPE_REQUEST);
+            if (cached != null) {
+                return (Optional<String>) cached;
+            }
+        }
+        
+        Optional<String> owner = switch (type) {
+            case PRODUCT -> productRepository.findOwnerUsernameById(id);
+            case USER -> userRepository.findUsernameById(id);
+            default -> throw new IllegalArgumentException("Unknown resource type: " + type);
+        };
+        
+        if (attributes != null) {
+            attributes.setAttribute(attribute, owner, RequestAttributes.SCOPE_REQUEST);
+        }
+        return owner;
+    }
+    
+    public boolean isOwner(String type, Long id, String username) {
+        return username != null && ownerOf(type, id).map(username::equals).orElse(false);
+    }
+}
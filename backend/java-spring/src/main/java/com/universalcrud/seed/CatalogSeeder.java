@@ -0,0 +1,269 @@
+package com.universalcrud.seed;
+
+import com.universalcrud.service.ProductService;
+import com.universalcrud.util.IdBlockAllocator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Fills the schema with a synthetic catalogue for performance testing:
+//   --spring.profiles.active=seed[,h2]  [--app.seed.products=1000000 ...]  [--app.seed.exit=true]
+// Every chunk draws from its own SplittableRandom derived from (seed, table, chunk index), so the
+// dataset is identical for a given seed however the chunks are scheduled across threads. Rows go in
+// through JDBC batch inserts, one transaction per chunk, with ids reserved up front from id_blocks.
+// Runs before the other startup runners, so the range index and Bloom filters are built from the result.
+@Component
+@Profile("seed")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CatalogSeeder implements CommandLineRunner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSeeder.class);
+    
+    private static final int CHUNK_SIZE = 10_000;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private IdBlockAllocator idBlockAllocator;
+    
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    
+    @Value("${app.seed.seed:42}")
+    private long seed;
+    
+    @Value("${app.seed.users:5000}")
+    private int userCount;
+    
+    @Value("${app.seed.categories:2000}")
+    private int categoryCount;
+    
+    @Value("${app.seed.products:1000000}")
+    private int productCount;
+    
+    @Value("${app.seed.batch-size:1000}")
+    private int batchSize;
+    
+    @Value("${app.seed.threads:0}")
+    private int threads;
+    
+    @Value("${app.seed.password:password123}")
+    private String password;
+    
+    @Value("${app.seed.base-time:2024-01-01T00:00:00}")
+    private String baseTime;
+    
+    @Value("${app.seed.force:false}")
+    private boolean force;
+    
+    @Value("${app.snapshot.path:${java.io.tmpdir}/universal-crud/catalog.snapshot}")
+    private String snapshotPath;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    @Override
+    public void run(String... args) throws Exception {
+        Long existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products", Long.class);
+        if (existing != null && existing > 0 && !force) {
+            logger.info("Skipping seed: products table already has {} rows (set app.seed.force=true to add more)", existing);
+            return;
+        }
+        
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        int workers = threads > 0 ? threads : Math.min(Runtime.getRuntime().availableProcessors(), 8);
+        LocalDateTime base = LocalDateTime.parse(baseTime);
+        long start = System.currentTimeMillis();
+        logger.info("Seeding {} users, {} categories and {} products with seed {} on {} threads",
+                userCount, categoryCount, productCount, seed, workers);
+        
+        // One hash for every seeded user: BCrypt at cost 10 would otherwise dominate the run
+        String passwordHash = passwordEncoder.encode(password);
+        long firstUserId = idBlockAllocator.reserve("users", userCount);
+        long firstCategoryId = idBlockAllocator.reserve("categories", categoryCount);
+        long firstProductId = idBlockAllocator.reserve("products", productCount);
+        long firstSkuSequence = idBlockAllocator.reserve("product_skus", productCount);
+        
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            AtomicLong rows = new AtomicLong();
+            List<Future<?>> parents = new ArrayList<>();
+            for (int chunk = 0; chunk * CHUNK_SIZE < userCount; chunk++) {
+                int from = chunk * CHUNK_SIZE;
+                int to = Math.min(userCount, from + CHUNK_SIZE);
+                int index = chunk;
+                parents.add(executor.submit(() -> rows.addAndGet(
+                        insertUsers(random(1, index), firstUserId, from, to, passwordHash, base))));
+            }
+            for (int chunk = 0; chunk * CHUNK_SIZE < categoryCount; chunk++) {
+                int from = chunk * CHUNK_SIZE;
+                int to = Math.min(categoryCount, from + CHUNK_SIZE);
+                int index = chunk;
+                parents.add(executor.submit(() -> rows.addAndGet(
+                        insertCategories(random(2, index), firstCategoryId, from, to, base))));
+            }
+            await(parents);
+            
+            List<Future<?>> products = new ArrayList<>();
+            for (int chunk = 0; (long) chunk * CHUNK_SIZE < productCount; chunk++) {
+                int from = chunk * CHUNK_SIZE;
+                int to = Math.min(productCount, from + CHUNK_SIZE);
+                int index = chunk;
+                products.add(executor.submit(() -> {
+                    long inserted = insertProducts(random(3, index), firstProductId, firstSkuSequence,
+                            firstCategoryId, firstUserId, from, to, base);
+                    long total = rows.addAndGet(inserted);
+                    if (index % 20 == 19) {
+                        logger.info("Seeded {} rows so far", total);
+                    }
+                }));
+            }
+            await(products);
+            
+            long elapsed = Math.max(1, System.currentTimeMillis() - start);
+            logger.info("Seeded {} rows in {} ms ({} rows/s)", rows.get(), elapsed, rows.get() * 1000 / elapsed);
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        // A snapshot from before the seed would hide the new rows: their updatedAt predates it
+        Files.deleteIfExists(Paths.get(snapshotPath));
+    }
+    
+    private SplittableRandom random(int table, int chunk) {
+        long mixed = seed * 0x9E3779B97F4A7C15L + table * 0xC2B2AE3D27D4EB4FL + chunk * 0x165667B19E3779F9L;
+        return new SplittableRandom(mixed);
+    }
+    
+    private long insertUsers(SplittableRandom random, long firstId, int from, int to, String passwordHash, LocalDateTime base) {
+        List<Object[]> batch = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            // Named after the reserved id, so a forced run adds users instead of colliding with earlier ones
+            String username = String.format("user%07d", firstId + i);
+            String firstName = SeedVocabulary.pick(random, SeedVocabulary.FIRST_NAMES);
+            String lastName = SeedVocabulary.pick(random, SeedVocabulary.LAST_NAMES);
+            // About 1 in 100 users is an admin; the first of a run always is, so a benchmark has a known admin
+            // login (user0000001 when seeding an empty database)
+            String role = i == 0 || random.nextInt(100) == 0 ? "ADMIN" : "USER";
+            Timestamp createdAt = Timestamp.valueOf(base.minusMinutes(random.nextLong(2L * 365 * 24 * 60)));
+            batch.add(new Object[] {firstId + i, username, username + "@example.com", passwordHash, firstName, lastName,
+                    role, createdAt, createdAt, random.nextInt(50) != 0});
+        }
+        return insert("INSERT INTO users (id, username, email, password, first_name, last_name, role, created_at, updated_at, enabled) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", batch);
+    }
+    
+    private long insertCategories(SplittableRandom random, long firstId, int from, int to, LocalDateTime base) {
+        List<Object[]> batch = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            String department = SeedVocabulary.pick(random, SeedVocabulary.DEPARTMENTS);
+            String name = department + " " + SeedVocabulary.pick(random, SeedVocabulary.CATEGORY_SUFFIXES)
+                    + String.format(" %04d", firstId + i);
+            String description = "Everything in " + department.toLowerCase(Locale.ROOT) + ": "
+                    + SeedVocabulary.sentence(random) + " " + SeedVocabulary.sentence(random);
+            Timestamp createdAt = Timestamp.valueOf(base.minusMinutes(random.nextLong(3L * 365 * 24 * 60)));
+            batch.add(new Object[] {firstId + i, name, description, createdAt, createdAt});
+        }
+        return insert("INSERT INTO categories (id, name, description, created_at, updated_at) VALUES (?, ?, ?, ?, ?)", batch);
+    }
+    
+    private long insertProducts(SplittableRandom random, long firstId, long firstSku, long firstCategoryId, long firstUserId,
+                                int from, int to, LocalDateTime base) {
+        List<Object[]> batch = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            long id = firstId + i;
+            String sku = ProductService.formatSku(firstSku + i);
+            String name = SeedVocabulary.productName(random);
+            String description = SeedVocabulary.sentence(random) + " " + SeedVocabulary.sentence(random)
+                    + (random.nextBoolean() ? " " + SeedVocabulary.sentence(random) : "");
+            LocalDateTime created = base.minusMinutes(random.nextLong(2L * 365 * 24 * 60));
+            LocalDateTime updated = created.plusMinutes(random.nextLong(Math.max(1, Duration.between(created, base).toMinutes())));
+            batch.add(new Object[] {id, name, description, price(random), quantity(random),
+                    random.nextInt(10) < 7 ? "https://picsum.photos/seed/" + sku + "/400/400" : null,
+                    sku, random.nextInt(100) < 95, Timestamp.valueOf(created), Timestamp.valueOf(updated),
+                    firstCategoryId + skewed(random, categoryCount, 1.8),
+                    firstUserId + skewed(random, userCount, 2.5)});
+        }
+        return insert("INSERT INTO products (id, name, description, price, quantity, image, sku, is_active, created_at, updated_at, " +
+                "category_id, created_by) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", batch);
+    }
+    
+    // Log-normal around $25 with a long tail, mostly ending in .99 / .49 like real price lists
+    private static BigDecimal price(SplittableRandom random) {
+        double value = Math.exp(3.2 + gaussian(random) * 1.1);
+        value = Math.min(9999.0, Math.max(1.0, value));
+        double cents = switch (random.nextInt(4)) {
+            case 0, 1 -> 0.99;
+            case 2 -> 0.49;
+            default -> random.nextInt(100) / 100.0;
+        };
+        return BigDecimal.valueOf(Math.floor(value) + cents).setScale(2, RoundingMode.HALF_UP);
+    }
+    
+    // ~6% out of stock, ~12% low (1-9), the rest log-normal around 60 units
+    private static int quantity(SplittableRandom random) {
+        int bucket = random.nextInt(100);
+        if (bucket < 6) {
+            return 0;
+        }
+        if (bucket < 18) {
+            return 1 + random.nextInt(9);
+        }
+        return (int) Math.min(5000, Math.max(10, Math.round(Math.exp(4.1 + gaussian(random) * 0.9))));
+    }
+    
+    // Power-law pick in [0, n): a few categories and users own most products, as in real catalogues
+    private static long skewed(SplittableRandom random, int n, double exponent) {
+        return Math.min(n - 1, (long) (n * Math.pow(random.nextDouble(), exponent)));
+    }
+    
+    private static double gaussian(SplittableRandom random) {
+        double u1 = 1.0 - random.nextDouble();
+        double u2 = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+    }
+    
+    private long insert(String sql, List<Object[]> rows) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < rows.size(); i += batchSize) {
+                jdbcTemplate.batchUpdate(sql, rows.subList(i, Math.min(rows.size(), i + batchSize)));
+            }
+        });
+        return rows.size();
+    }
+    
+    private static void await(List<Future<?>> futures) throws Exception {
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.universalcrud.seed;
+
+import java.util.SplittableRandom;
+
+// Word lists for the synthetic catalogue. Picks depend only on the random stream passed in.
+final class SeedVocabulary {
+    
+    static final String[] FIRST_NAMES = {
+            "James", "Mary", "Robert", "Patricia", "John", "Jennifer", "Michael", "Linda", "David", "Elizabeth",
+            "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah", "Carlos", "Karen",
+            "Wei", "Aisha", "Hiroshi", "Priya", "Mateo", "Olga", "Kwame", "Ingrid", "Ahmed", "Sofia"
+    };
+    
+    static final String[] LAST_NAMES = {
+            "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
+            "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin",
+            "Chen", "Okafor", "Tanaka", "Patel", "Silva", "Ivanova", "Mensah", "Larsen", "Haddad", "Rossi"
+    };
+    
+    static final String[] DEPARTMENTS = {
+            "Kitchen", "Garden", "Outdoor", "Office", "Electronics", "Audio", "Lighting", "Bath", "Bedroom",
+            "Automotive", "Fitness", "Camping", "Pet", "Baby", "Toys", "Crafts", "Tools", "Storage", "Travel", "Gaming"
+    };
+    
+    static final String[] CATEGORY_SUFFIXES = {
+            "Essentials", "Accessories", "Supplies", "Equipment", "Gear", "Basics", "Decor", "Care", "Parts", "Gadgets"
+    };
+    
+    private static final String[] BRANDS = {
+            "Acme", "Northwind", "Contoso", "Globex", "Initech", "Umbrella", "Stark", "Wayne", "Hooli", "Vandelay",
+            "Tyrell", "Cyberdyne", "Soylent", "Aperture", "Wonka", "Gringotts", "Oscorp", "Massive", "Dunder", "Pied Piper"
+    };
+    
+    private static final String[] ADJECTIVES = {
+            "Compact", "Deluxe", "Ultra", "Pro", "Eco", "Smart", "Classic", "Portable", "Heavy-Duty", "Wireless",
+            "Ergonomic", "Premium", "Mini", "Adjustable", "Foldable", "Rechargeable", "Stainless", "Bamboo", "Modular", "Vintage"
+    };
+    
+    private static final String[] NOUNS = {
+            "Blender", "Lamp", "Backpack", "Kettle", "Headphones", "Chair", "Desk", "Speaker", "Drill", "Tent",
+            "Organizer", "Bottle", "Charger", "Keyboard", "Mouse", "Planter", "Towel", "Pillow", "Scale", "Camera",
+            "Grill", "Fan", "Heater", "Router", "Monitor", "Toolbox", "Leash", "Stroller", "Puzzle", "Notebook"
+    };
+    
+    private static final String[] SENTENCES = {
+            "Built to last with reinforced materials and a two-year warranty.",
+            "Designed for everyday use at home, in the office or on the road.",
+            "Lightweight and easy to clean, it fits neatly into any space.",
+            "A customer favourite for its reliability and simple setup.",
+            "Energy efficient and quiet, even at full power.",
+            "Includes everything you need to get started in minutes.",
+            "Made from responsibly sourced materials and recyclable packaging.",
+            "Available in several colours to match your style.",
+            "Tested by our team for durability and performance.",
+            "Pairs well with the rest of the collection.",
+            "Ideal as a gift, with premium packaging included.",
+            "Compact enough to store anywhere when not in use."
+    };
+    
+    private SeedVocabulary() {
+    }
+    
+    static String pick(SplittableRandom random, String[] words) {
+        return words[random.nextInt(words.length)];
+    }
+    
+    static String sentence(SplittableRandom random) {
+        return pick(random, SENTENCES);
+    }
+    
+    // e.g. "Globex Wireless Speaker S-340"
+    static String productName(SplittableRandom random) {
+        String noun = pick(random, NOUNS);
+        return pick(random, BRANDS) + " " + pick(random, ADJECTIVES) + " " + noun + " "
+                + noun.charAt(0) + "-" + (100 + random.nextInt(900));
+    }
+}
@@ -0,0 +1,190 @@
+package com.universalcrud.service;
+
+import com.universalcrud.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+// Periodically writes the product range index to a memory-mapped snapshot file and restores it on
+// startup instead of rebuilding it from the products table. Runs as an ApplicationRunner so readiness
+// only flips once the index is loaded.
+@Service
+@Order(100)
+public class CatalogSnapshotService implements ApplicationRunner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshotService.class);
+    
+    private static final int MAGIC = 0x55435331; // "UCS1"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4;
+    private static final int PRODUCT_BYTES = 8 + 8 + 8;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private ProductRangeIndex productRangeIndex;
+    
+    @Value("${app.snapshot.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.snapshot.path:${java.io.tmpdir}/universal-crud/catalog.snapshot}")
+    private String snapshotPath;
+    
+    @Value("${app.snapshot.max-age-hours:24}")
+    private long maxAgeHours;
+    
+    @Value("${app.snapshot.catch-up-margin-ms:60000}")
+    private long catchUpMarginMs;
+    
+    private volatile boolean warm;
+    
+    private record Snapshot(LocalDateTime takenAt, int products) {
+    }
+    
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.currentTimeMillis();
+        Snapshot snapshot = enabled ? readSnapshot() : null;
+        
+        if (snapshot != null) {
+            catchUp(snapshot.takenAt().minus(Duration.ofMillis(catchUpMarginMs)));
+            logger.info("Catalogue warmed from snapshot taken at {} ({} products)", snapshot.takenAt(), snapshot.products());
+        } else {
+            productRangeIndex.rebuild();
+        }
+        
+        // Prime the query plans and connection pool behind the default catalogue page
+        productRepository.findByIsActiveOrderByCreatedAtDesc(true, PageRequest.of(0, 10));
+        warm = true;
+        logger.info("Catalogue warm-up finished in {} ms", System.currentTimeMillis() - start);
+        
+        if (enabled && snapshot == null) {
+            writeSnapshot();
+        }
+    }
+    
+    @Scheduled(initialDelayString = "${app.snapshot.interval-ms:300000}", fixedDelayString = "${app.snapshot.interval-ms:300000}")
+    public void writeSnapshot() {
+        if (!enabled || !warm) {
+            return;
+        }
+        
+        // Capture the timestamp before reading the index so catch-up covers writes made while dumping
+        LocalDateTime takenAt = LocalDateTime.now();
+        List<long[]> products = new ArrayList<>(productRangeIndex.size());
+        productRangeIndex.forEachEntry((id, priceCents, quantity) -> products.add(new long[] {id, priceCents, quantity}));
+        
+        Path target = Paths.get(snapshotPath);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        long size = HEADER_BYTES + (long) products.size() * PRODUCT_BYTES;
+        
+        try {
+            Files.createDirectories(target.toAbsolutePath().getParent());
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                buffer.putInt(MAGIC);
+                buffer.putInt(VERSION);
+                buffer.putLong(takenAt.toInstant(ZoneOffset.UTC).toEpochMilli());
+                buffer.putInt(products.size());
+                for (long[] product : products) {
+                    buffer.putLong(product[0]);
+                    buffer.putLong(product[1]);
+                    buffer.putLong(product[2]);
+                }
+                buffer.force();
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Catalogue snapshot written to {} ({} products)", target, products.size());
+        } catch (IOException e) {
+            logger.warn("Failed to write catalogue snapshot to {}: {}", target, e.getMessage());
+        }
+    }
+    
+    private Snapshot readSnapshot() {
+        Path path = Paths.get(snapshotPath);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                logger.warn("Ignoring catalogue snapshot {} with unknown format", path);
+                return null;
+            }
+            LocalDateTime takenAt = LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC)
+                    .plus(Duration.ofMillis(buffer.getLong()));
+            int productCount = buffer.getInt();
+            if (size != HEADER_BYTES + (long) productCount * PRODUCT_BYTES) {
+                logger.warn("Ignoring truncated catalogue snapshot {}", path);
+                return null;
+            }
+            if (takenAt.isBefore(LocalDateTime.now().minusHours(maxAgeHours))) {
+                logger.info("Ignoring catalogue snapshot taken at {}, older than {} hours", takenAt, maxAgeHours);
+                return null;
+            }
+            
+            productRangeIndex.clear();
+            for (int i = 0; i < productCount; i++) {
+                productRangeIndex.restore(buffer.getLong(), buffer.getLong(), buffer.getLong());
+            }
+            return new Snapshot(takenAt, productCount);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to read catalogue snapshot {}: {}", path, e.getMessage());
+            productRangeIndex.clear();
+            return null;
+        }
+    }
+    
+    private void catchUp(LocalDateTime since) {
+        int changed = 0;
+        for (Object[] row : productRepository.findStockKeysUpdatedSince(since)) {
+            Long id = (Long) row[0];
+            if (Boolean.TRUE.equals(row[3])) {
+                Integer quantity = (Integer) row[2];
+                productRangeIndex.restore(id, ProductRangeIndex.toCents((BigDecimal) row[1]), quantity != null ? quantity : 0);
+            } else {
+                productRangeIndex.remove(id);
+            }
+            changed++;
+        }
+        // Deactivations came through the delta above. Deletes leave no updatedAt trail, so only when the
+        // active count disagrees with the index is there anything left to drop, and only then are ids scanned.
+        long active = productRepository.countActiveProducts();
+        if (active != productRangeIndex.size()) {
+            productRangeIndex.retainAll(new HashSet<>(productRepository.findActiveProductIds()));
+            logger.info("Dropped products deleted since the snapshot, index now holds {} of {} active",
+                    productRangeIndex.size(), active);
+        }
+        logger.info("Caught up {} products changed since {}", changed, since);
+    }
+}
@@ -1,21 +1,61 @@
 package com.universalcrud.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.universalcrud.dto.CategorySummary;
+import com.universalcrud.dto.CategoryWithProducts;
 import com.universalcrud.entity.Category;
+import com.universalcrud.entity.Product;
 import com.universalcrud.repository.CategoryRepository;
+import com.universalcrud.repository.ProductRepository;
+import com.universalcrud.service.UniqueKeyFilters.Key;
+import com.universalcrud.util.MergePatch;
+import com.universalcrud.util.UniqueConstraints;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
+@Transactional(readOnly = true)
 public class CategoryService {
     
+    private static final Set<String> PATCHABLE_FIELDS = Set.of("name", "description");
+    
     @Autowired
     private CategoryRepository categoryRepository;
     
-    public List<Category> getAllCategories() {
-        return categoryRepository.findAll();
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private UniqueKeyFilters uniqueKeyFilters;
+    
+    @Autowired
+    private Validator validator;
+    
+    public Page<Category> getAllCategories(Pageable pageable) {
+        return categoryRepository.findAll(pageable);
+    }
+    
+    public Page<CategorySummary> getAllCategorySummaries(Pageable pageable) {
+        return categoryRepository.findAllSummaries(pageable);
     }
     
     public Optional<Category> getCategoryById(Long id) {
@@ -26,29 +66,108 @@ public class CategoryService {
         return categoryRepository.findByName(name);
     }
     
+    @Transactional
     public Category createCategory(Category category) {
-        if (categoryRepository.existsByName(category.getName())) {
+        if (uniqueKeyFilters.exists(Key.CATEGORY_NAME, category.getName(), categoryRepository::existsByName)) {
             throw new RuntimeException("Category with name '" + category.getName() + "' already exists");
         }
-        return categoryRepository.save(category);
+        return saveWithUniqueName(category);
     }
     
+    @Transactional
     public Category updateCategory(Long id, Category categoryDetails) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Category not found with id: " + id));
         
         // Check if name is being changed and if it's already taken
         if (!category.getName().equals(categoryDetails.getName()) && 
-            categoryRepository.existsByName(categoryDetails.getName())) {
+            uniqueKeyFilters.exists(Key.CATEGORY_NAME, categoryDetails.getName(), categoryRepository::existsByName)) {
             throw new RuntimeException("Category with name '" + categoryDetails.getName() + "' already exists");
         }
         
         category.setName(categoryDetails.getName());
         category.setDescription(categoryDetails.getDescription());
         
-        return categoryRepository.save(category);
+        return saveWithUniqueName(category);
+    }
+    
+    // The unique constraint settles races the existence check can't see; flushed so it fails in here
+    @Transactional
+    public Category patchCategory(Long id, JsonNode patch) {
+        MergePatch changes = MergePatch.of(patch, PATCHABLE_FIELDS);
+        Category category = categoryRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Category not found with id: " + id));
+        applyPatch(category, changes);
+        return saveWithUniqueName(category);
+    }
+    
+    // All or nothing, with the dirty rows flushed as JDBC batches like the product batch patch
+    @Transactional
+    public List<Long> patchCategories(List<JsonNode> items) {
+        Map<Long, MergePatch> patches = MergePatch.batch(items, PATCHABLE_FIELDS);
+        Map<Long, Category> categories = categoryRepository.findAllById(patches.keySet()).stream()
+                .collect(Collectors.toMap(Category::getId, category -> category));
+        List<Long> missing = patches.keySet().stream().filter(id -> !categories.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("Categories not found: " + missing);
+        }
+        
+        patches.forEach((id, patch) -> {
+            try {
+                applyPatch(categories.get(id), patch);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Category " + id + ": " + e.getMessage());
+            }
+        });
+        
+        try {
+            categoryRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            if (UniqueConstraints.CATEGORY_NAME.equals(UniqueConstraints.violated(e))) {
+                throw new IllegalArgumentException("The batch would give two categories the same name");
+            }
+            throw e;
+        }
+        categories.values().forEach(category -> uniqueKeyFilters.add(Key.CATEGORY_NAME, category.getName()));
+        return new ArrayList<>(patches.keySet());
+    }
+    
+    private void applyPatch(Category category, MergePatch patch) {
+        if (patch.has("name")) {
+            String name = patch.get("name", String.class);
+            if (name == null) {
+                throw new IllegalArgumentException("'name' cannot be null");
+            }
+            if (!name.equals(category.getName())
+                    && uniqueKeyFilters.exists(Key.CATEGORY_NAME, name, categoryRepository::existsByName)) {
+                throw new RuntimeException("Category with name '" + name + "' already exists");
+            }
+            category.setName(name);
+        }
+        patch.apply("description", String.class, category::setDescription);
+        
+        Set<ConstraintViolation<Category>> violations = validator.validate(category);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream().map(ConstraintViolation::getMessage).sorted()
+                    .collect(Collectors.joining("; ")));
+        }
     }
     
+    private Category saveWithUniqueName(Category category) {
+        Category savedCategory;
+        try {
+            savedCategory = categoryRepository.saveAndFlush(category);
+        } catch (DataIntegrityViolationException e) {
+            if (UniqueConstraints.CATEGORY_NAME.equals(UniqueConstraints.violated(e))) {
+                throw new RuntimeException("Category with name '" + category.getName() + "' already exists");
+            }
+            throw e;
+        }
+        uniqueKeyFilters.add(Key.CATEGORY_NAME, savedCategory.getName());
+        return savedCategory;
+    }
+    
+    @Transactional
     public void deleteCategory(Long id) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Category not found with id: " + id));
@@ -62,24 +181,48 @@ public class CategoryService {
         categoryRepository.delete(category);
     }
     
-    public List<Category> searchCategoriesByName(String name) {
-        return categoryRepository.findByNameContaining(name);
+    public Page<Category> searchCategoriesByName(String name, Pageable pageable) {
+        return categoryRepository.findByNameContaining(name, pageable);
     }
     
-    public List<Category> getAllCategoriesWithProducts() {
-        return categoryRepository.findAllWithProducts();
+    // Same listing as the products endpoint's category filter, so both share one coalescing key
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Page<Product> getCategoryProducts(Long categoryId, Pageable pageable) {
+        return productService.getProductsByCategoryPaginated(categoryId, pageable);
     }
     
-    public Optional<Category> getCategoryWithProducts(Long id) {
-        return categoryRepository.findByIdWithProducts(id);
+    public Page<CategoryWithProducts> getCategoriesWithTopProducts(Pageable pageable, int productsPerCategory) {
+        Page<Category> categories = categoryRepository.findAll(pageable);
+        if (categories.isEmpty()) {
+            return categories.map(category -> new CategoryWithProducts(category, List.of()));
+        }
+        
+        List<Long> categoryIds = categories.getContent().stream().map(Category::getId).collect(Collectors.toList());
+        List<Long> productIds = productRepository.findTopActiveProductIdsPerCategory(categoryIds, productsPerCategory).stream()
+                .map(Number::longValue)
+                .collect(Collectors.toList());
+        
+        Map<Long, List<Product>> productsByCategory = new HashMap<>();
+        if (!productIds.isEmpty()) {
+            productRepository.findAllWithDetailsByIdIn(productIds).stream()
+                    .sorted(Comparator.comparing(Product::getCreatedAt).reversed().thenComparing(Product::getId, Comparator.reverseOrder()))
+                    .forEach(product -> productsByCategory
+                            .computeIfAbsent(product.getCategory().getId(), key -> new ArrayList<>())
+                            .add(product));
+        }
+        
+        return categories.map(category -> new CategoryWithProducts(category,
+                productsByCategory.getOrDefault(category.getId(), List.of())));
     }
     
     public long getProductCountByCategory(Long categoryId) {
         return categoryRepository.countProductsByCategoryId(categoryId);
     }
     
+    // Usually answered by the Bloom filter without touching the database
+    @Transactional(propagation = Propagation.SUPPORTS)
     public boolean existsByName(String name) {
-        return categoryRepository.existsByName(name);
+        return uniqueKeyFilters.exists(Key.CATEGORY_NAME, name, categoryRepository::existsByName);
     }
     
     public boolean canDeleteCategory(Long id) {
@@ -0,0 +1,327 @@
+package com.universalcrud.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Content-addressed image store. Originals are named by the SHA-256 of their bytes, so identical uploads
+// share one file and a name always denotes the same content, which is what lets the serving side cache
+// forever. Thumbnails are derived JPEGs rendered once per width on a background worker.
+@Service
+public class ImageStorageService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ImageStorageService.class);
+    
+    // Also the only names the serving side resolves, so a request can never walk out of the store
+    private static final Pattern NAME = Pattern.compile("([0-9a-f]{64})\\.(jpg|png|gif|webp)");
+    
+    @Value("${app.images.dir:${java.io.tmpdir}/universal-crud/images}")
+    private String dir;
+    
+    @Value("${app.images.max-bytes:5242880}")
+    private long maxBytes;
+    
+    // A few hundred bytes of PNG or GIF can declare a canvas that takes gigabytes to decode
+    @Value("${app.images.max-pixels:40000000}")
+    private long maxPixels;
+    
+    @Value("${app.images.thumbnail-widths:160,320,640}")
+    private List<Integer> thumbnailWidths;
+    
+    @Value("${app.images.thumbnail-workers:1}")
+    private int workers;
+    
+    @Value("${app.images.thumbnail-queue-capacity:200}")
+    private int queueCapacity;
+    
+    private Path root;
+    private ThreadPoolExecutor executor;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(dir).toAbsolutePath();
+        Files.createDirectories(root.resolve("tmp"));
+        AtomicInteger threads = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "thumbnail-worker-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    // Returns the stored name (<sha256>.<ext>); throws IllegalArgumentException for anything that is not
+    // a JPEG, PNG, GIF or WebP by its magic bytes, whatever the client claimed, or has more than max-pixels
+    public String store(MultipartFile file) throws IOException {
+        if (file.isEmpty()) {
+            throw new IllegalArgumentException("Image file is empty");
+        }
+        if (file.getSize() > maxBytes) {
+            throw new IllegalArgumentException("Image is larger than " + maxBytes + " bytes");
+        }
+        
+        Path temp = Files.createTempFile(root.resolve("tmp"), "upload-", ".part");
+        try {
+            // Usually a rename of the multipart spool file rather than a copy
+            file.transferTo(temp.toFile());
+            
+            MessageDigest digest = sha256();
+            byte[] header;
+            try (DigestInputStream in = new DigestInputStream(Files.newInputStream(temp), digest)) {
+                header = in.readNBytes(12);
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            String extension = detectExtension(header);
+            if (extension == null) {
+                throw new IllegalArgumentException("Unsupported image type; upload a JPEG, PNG, GIF or WebP file");
+            }
+            checkPixels(temp);
+            
+            String name = HexFormat.of().formatHex(digest.digest()) + '.' + extension;
+            Path target = originalPath(name);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                logger.info("Stored image {} ({} bytes)", name, Files.size(target));
+            }
+            return name;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+    
+    // Null when the name is not one of ours or the file is gone
+    public Path findOriginal(String name) {
+        if (!NAME.matcher(name).matches()) {
+            return null;
+        }
+        Path path = originalPath(name);
+        return Files.isRegularFile(path) ? path : null;
+    }
+    
+    // Null until the thumbnail has been rendered; asking for a missing one queues it
+    public Path findThumbnail(String name, int width) {
+        if (!thumbnailWidths.contains(width)) {
+            throw new IllegalArgumentException("Thumbnail width must be one of " + thumbnailWidths);
+        }
+        Path path = thumbnailPath(name, width);
+        if (Files.isRegularFile(path)) {
+            return path;
+        }
+        schedule(name, width);
+        return null;
+    }
+    
+    public void generateThumbnails(String name) {
+        for (int width : thumbnailWidths) {
+            if (!Files.isRegularFile(thumbnailPath(name, width))) {
+                schedule(name, width);
+            }
+        }
+    }
+    
+    public static String contentType(String name) {
+        Matcher matcher = NAME.matcher(name);
+        if (!matcher.matches()) {
+            return "application/octet-stream";
+        }
+        return switch (matcher.group(2)) {
+            case "jpg" -> "image/jpeg";
+            case "png" -> "image/png";
+            case "gif" -> "image/gif";
+            default -> "image/webp";
+        };
+    }
+    
+    public static String hashOf(String name) {
+        return name.substring(0, name.indexOf('.'));
+    }
+    
+    private void schedule(String name, int width) {
+        String key = name + ':' + width;
+        if (!pending.add(key)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    render(name, width);
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Failed to render {}px thumbnail of {}: {}", width, name, e.getMessage());
+                } finally {
+                    pending.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Queue full: the original keeps being served and the next request asks again
+            pending.remove(key);
+        }
+    }
+    
+    private void render(String name, int width) throws IOException {
+        Path original = findOriginal(name);
+        if (original == null) {
+            return;
+        }
+        int sourceWidth;
+        int sourceHeight;
+        BufferedImage source;
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            ImageReader reader = openReader(input);
+            if (reader == null) {
+                // No ImageIO reader for the format (WebP); the original is served in its place
+                logger.debug("No reader for {}, skipping thumbnails", name);
+                return;
+            }
+            try {
+                // The header alone gives the size, nothing is decoded before the cap is checked
+                sourceWidth = reader.getWidth(0);
+                sourceHeight = reader.getHeight(0);
+                if ((long) sourceWidth * sourceHeight > maxPixels) {
+                    logger.warn("Not rendering thumbnails of {}: {}x{} pixels is over app.images.max-pixels",
+                            name, sourceWidth, sourceHeight);
+                    return;
+                }
+                // Decode every n-th pixel, keeping at least twice the target width to downscale from
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, sourceWidth / (2 * width));
+                param.setSourceSubsampling(step, step, 0, 0);
+                source = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+        
+        int targetWidth = Math.min(width, sourceWidth);
+        int targetHeight = Math.max(1, (int) Math.round((double) sourceHeight * targetWidth / sourceWidth));
+        BufferedImage thumbnail = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = thumbnail.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, targetWidth, targetHeight, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        
+        Path target = thumbnailPath(name, width);
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(root.resolve("tmp"), "thumb-", ".part");
+        try {
+            ImageIO.write(thumbnail, "jpg", temp.toFile());
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        logger.debug("Rendered {}px thumbnail of {}", width, name);
+    }
+    
+    private void checkPixels(Path file) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            ImageReader reader = openReader(input);
+            if (reader == null) {
+                return;
+            }
+            try {
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new IllegalArgumentException("Image is " + width + "x" + height + " pixels, more than "
+                            + maxPixels + " pixels");
+                }
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+    
+    // Null when ImageIO has no reader for the format
+    private static ImageReader openReader(ImageInputStream input) {
+        if (input == null) {
+            return null;
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            return null;
+        }
+        ImageReader reader = readers.next();
+        reader.setInput(input, true, true);
+        return reader;
+    }
+    
+    // Two-character fan-out keeps directories small
+    private Path originalPath(String name) {
+        return root.resolve("originals").resolve(name.substring(0, 2)).resolve(name);
+    }
+    
+    private Path thumbnailPath(String name, int width) {
+        return root.resolve("thumbnails").resolve(String.valueOf(width)).resolve(name.substring(0, 2))
+                .resolve(hashOf(name) + ".jpg");
+    }
+    
+    private static String detectExtension(byte[] header) {
+        if (header.length >= 3 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xD8 && (header[2] & 0xFF) == 0xFF) {
+            return "jpg";
+        }
+        if (header.length >= 8 && (header[0] & 0xFF) == 0x89 && header[1] == 'P' && header[2] == 'N' && header[3] == 'G') {
+            return "png";
+        }
+        if (header.length >= 6 && header[0] == 'G' && header[1] == 'I' && header[2] == 'F' && header[3] == '8') {
+            return "gif";
+        }
+        if (header.length >= 12 && header[0] == 'R' && header[1] == 'I' && header[2] == 'F' && header[3] == 'F'
+                && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return "webp";
+        }
+        return null;
+    }
+    
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
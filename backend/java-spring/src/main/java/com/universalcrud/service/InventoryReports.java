@@ -0,0 +1,195 @@
+package com.universalcrud.service;
+
+import com.universalcrud.dto.StockRow;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// Single-pass accumulators behind the report jobs. Each sees every active product row once, in no
+// particular order, and keeps only aggregates (or a bounded top-N), so memory doesn't grow with the catalogue.
+final class InventoryReports {
+    
+    interface Accumulator {
+        void accept(StockRow row);
+        
+        Map<String, Object> result();
+    }
+    
+    private InventoryReports() {
+    }
+    
+    static Accumulator create(ReportJob job) {
+        return switch (job.getType()) {
+            case INVENTORY_VALUATION -> new Valuation();
+            case STOCK_AGING -> new Aging(LocalDateTime.now());
+            case LOW_STOCK -> new LowStock((Integer) job.getParameters().get("threshold"),
+                    (Integer) job.getParameters().get("limit"));
+        };
+    }
+    
+    private static class Totals {
+        long products;
+        long units;
+        BigDecimal value = BigDecimal.ZERO;
+        
+        void add(StockRow row) {
+            products++;
+            units += row.getQuantity();
+            value = value.add(row.getValue());
+        }
+        
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("products", products);
+            map.put("units", units);
+            map.put("value", value);
+            return map;
+        }
+    }
+    
+    // Stock value per category, largest first
+    private static class Valuation implements Accumulator {
+        private final Map<Long, String> names = new HashMap<>();
+        private final Map<Long, Totals> byCategory = new HashMap<>();
+        private final Totals total = new Totals();
+        
+        @Override
+        public void accept(StockRow row) {
+            Long categoryId = row.getCategoryId() != null ? row.getCategoryId() : 0L;
+            names.putIfAbsent(categoryId, row.getCategoryName() != null ? row.getCategoryName() : "Uncategorised");
+            byCategory.computeIfAbsent(categoryId, key -> new Totals()).add(row);
+            total.add(row);
+        }
+        
+        @Override
+        public Map<String, Object> result() {
+            List<Map<String, Object>> categories = new ArrayList<>();
+            byCategory.entrySet().stream()
+                    .sorted(Comparator.comparing((Map.Entry<Long, Totals> entry) -> entry.getValue().value).reversed())
+                    .forEach(entry -> {
+                        Totals totals = entry.getValue();
+                        Map<String, Object> category = new LinkedHashMap<>();
+                        category.put("categoryId", entry.getKey() != 0L ? entry.getKey() : null);
+                        category.put("categoryName", names.get(entry.getKey()));
+                        category.putAll(totals.toMap());
+                        category.put("averagePrice", totals.units > 0
+                                ? totals.value.divide(BigDecimal.valueOf(totals.units), 2, RoundingMode.HALF_UP)
+                                : BigDecimal.ZERO);
+                        categories.add(category);
+                    });
+            
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("categories", categories);
+            result.put("total", total.toMap());
+            return result;
+        }
+    }
+    
+    // Stock bucketed by days since the product row last changed
+    private static class Aging implements Accumulator {
+        private static final int[] BUCKET_DAYS = {30, 90, 180, 365};
+        private static final String[] BUCKET_LABELS = {"0-30", "31-90", "91-180", "181-365", "365+"};
+        
+        private final LocalDateTime now;
+        private final Totals[] buckets = new Totals[BUCKET_LABELS.length];
+        private final Totals total = new Totals();
+        
+        Aging(LocalDateTime now) {
+            this.now = now;
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new Totals();
+            }
+        }
+        
+        @Override
+        public void accept(StockRow row) {
+            long days = row.getUpdatedAt() != null ? Duration.between(row.getUpdatedAt(), now).toDays() : Long.MAX_VALUE;
+            int bucket = 0;
+            while (bucket < BUCKET_DAYS.length && days > BUCKET_DAYS[bucket]) {
+                bucket++;
+            }
+            buckets[bucket].add(row);
+            total.add(row);
+        }
+        
+        @Override
+        public Map<String, Object> result() {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (int i = 0; i < buckets.length; i++) {
+                Map<String, Object> bucket = new LinkedHashMap<>();
+                bucket.put("ageDays", BUCKET_LABELS[i]);
+                bucket.putAll(buckets[i].toMap());
+                rows.add(bucket);
+            }
+            
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("buckets", rows);
+            result.put("total", total.toMap());
+            return result;
+        }
+    }
+    
+    // Products below the threshold, lowest stock first; keeps a bounded heap of the top rows
+    private static class LowStock implements Accumulator {
+        private static final Comparator<StockRow> LOWEST_FIRST =
+                Comparator.comparingInt(StockRow::getQuantity).thenComparing(StockRow::getId);
+        
+        private final int threshold;
+        private final int limit;
+        private final PriorityQueue<StockRow> lowest = new PriorityQueue<>(LOWEST_FIRST.reversed());
+        private long matching;
+        private long outOfStock;
+        
+        LowStock(int threshold, int limit) {
+            this.threshold = threshold;
+            this.limit = limit;
+        }
+        
+        @Override
+        public void accept(StockRow row) {
+            if (row.getQuantity() >= threshold) {
+                return;
+            }
+            matching++;
+            if (row.getQuantity() == 0) {
+                outOfStock++;
+            }
+            lowest.offer(row);
+            if (lowest.size() > limit) {
+                lowest.poll();
+            }
+        }
+        
+        @Override
+        public Map<String, Object> result() {
+            List<Map<String, Object>> products = new ArrayList<>(lowest.size());
+            lowest.stream().sorted(LOWEST_FIRST).forEach(row -> {
+                Map<String, Object> product = new LinkedHashMap<>();
+                product.put("id", row.getId());
+                product.put("name", row.getName());
+                product.put("sku", row.getSku());
+                product.put("categoryName", row.getCategoryName());
+                product.put("quantity", row.getQuantity());
+                product.put("price", row.getPrice());
+                products.add(product);
+            });
+            
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("threshold", threshold);
+            result.put("matching", matching);
+            result.put("outOfStock", outOfStock);
+            result.put("truncated", matching > products.size());
+            result.put("products", products);
+            return result;
+        }
+    }
+}
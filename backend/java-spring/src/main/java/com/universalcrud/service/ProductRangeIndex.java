@@ -0,0 +1,182 @@
+package com.universalcrud.service;
+
+import com.universalcrud.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+// In-memory secondary index over active products keyed on price (in cents) and quantity.
+// Range lookups return product ids in key order; the rows themselves are loaded by primary key.
+// Totals, offsets and counts come from subtree sizes, so a page costs O(log n + page size).
+@Component
+public class ProductRangeIndex {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ProductRangeIndex.class);
+    
+    private static final int REFRESH_STRIPES = 64;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    private final RankedKeySet byPrice = new RankedKeySet();
+    private final RankedKeySet byQuantity = new RankedKeySet();
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock[] refreshLocks = Stream.generate(ReentrantLock::new)
+            .limit(REFRESH_STRIPES).toArray(ReentrantLock[]::new);
+    
+    private record Entry(long priceCents, long quantity) {
+    }
+    
+    public interface EntryVisitor {
+        void visit(long id, long priceCents, long quantity);
+    }
+    
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        clear();
+        for (Object[] row : productRepository.findActiveProductStockKeys()) {
+            put((Long) row[0], (BigDecimal) row[1], (Integer) row[2]);
+        }
+        logger.info("Product range index rebuilt with {} active products in {} ms",
+                entries.size(), System.currentTimeMillis() - start);
+    }
+    
+    public void refresh(Long id) {
+        refresh(List.of(id));
+    }
+    
+    // Writers call this after commit with the ids they changed. It reads the committed rows rather than
+    // applying the instances the writers saved: after-commit callbacks of concurrent transactions run in
+    // no particular order, and an older instance applied last would stick. Reading and applying under the
+    // ids' stripe locks means whichever callback runs last sees the latest commit. A missing row was deleted.
+    public void refresh(Collection<Long> ids) {
+        List<Long> distinct = ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (distinct.isEmpty()) {
+            return;
+        }
+        // Taken in ascending stripe order, so two batch refreshes can't deadlock
+        int[] stripes = distinct.stream().mapToInt(id -> Math.floorMod(id.hashCode(), REFRESH_STRIPES))
+                .distinct().sorted().toArray();
+        for (int stripe : stripes) {
+            refreshLocks[stripe].lock();
+        }
+        try {
+            Set<Long> missing = new HashSet<>(distinct);
+            for (Object[] row : productRepository.findStockKeysByIdIn(distinct)) {
+                Long id = (Long) row[0];
+                missing.remove(id);
+                if (Boolean.TRUE.equals(row[3])) {
+                    put(id, (BigDecimal) row[1], (Integer) row[2]);
+                } else {
+                    remove(id);
+                }
+            }
+            missing.forEach(this::remove);
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                refreshLocks[stripes[i]].unlock();
+            }
+        }
+    }
+    
+    public void restore(long id, long priceCents, long quantity) {
+        put(id, new Entry(priceCents, quantity));
+    }
+    
+    public void retainAll(Set<Long> activeIds) {
+        for (Long id : entries.keySet()) {
+            if (!activeIds.contains(id)) {
+                remove(id);
+            }
+        }
+    }
+    
+    public void forEachEntry(EntryVisitor visitor) {
+        entries.forEach((id, entry) -> visitor.visit(id, entry.priceCents(), entry.quantity()));
+    }
+    
+    public void clear() {
+        entries.clear();
+        byPrice.clear();
+        byQuantity.clear();
+    }
+    
+    public void remove(Long id) {
+        entries.computeIfPresent(id, (key, old) -> {
+            byPrice.remove(old.priceCents(), key);
+            byQuantity.remove(old.quantity(), key);
+            return null;
+        });
+    }
+    
+    public Page<Long> findByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable) {
+        long min = minPrice != null ? minPrice.movePointRight(2).setScale(0, RoundingMode.CEILING).longValue() : Long.MIN_VALUE;
+        long max = maxPrice != null ? maxPrice.movePointRight(2).setScale(0, RoundingMode.FLOOR).longValue() : Long.MAX_VALUE;
+        return range(byPrice, min, max, pageable);
+    }
+    
+    public Page<Long> findByQuantityBelow(int threshold, Pageable pageable) {
+        return range(byQuantity, Long.MIN_VALUE, (long) threshold - 1, pageable);
+    }
+    
+    public Page<Long> findOutOfStock(Pageable pageable) {
+        return range(byQuantity, 0, 0, pageable);
+    }
+    
+    public long countByQuantityBelow(int threshold) {
+        return count(byQuantity, Long.MIN_VALUE, (long) threshold - 1);
+    }
+    
+    public long countOutOfStock() {
+        return count(byQuantity, 0, 0);
+    }
+    
+    public int size() {
+        return entries.size();
+    }
+    
+    private void put(Long id, BigDecimal price, Integer quantity) {
+        put(id, new Entry(toCents(price), quantity != null ? quantity : 0));
+    }
+    
+    private void put(Long id, Entry entry) {
+        // compute() serialises concurrent writers of the same product so both sets stay in step
+        entries.compute(id, (key, old) -> {
+            if (old != null) {
+                byPrice.remove(old.priceCents(), key);
+                byQuantity.remove(old.quantity(), key);
+            }
+            byPrice.add(entry.priceCents(), key);
+            byQuantity.add(entry.quantity(), key);
+            return entry;
+        });
+    }
+    
+    private Page<Long> range(RankedKeySet index, long min, long max, Pageable pageable) {
+        RankedKeySet.Slice slice = index.slice(min, max, pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(slice.ids(), pageable, slice.total());
+    }
+    
+    private long count(RankedKeySet index, long min, long max) {
+        return index.count(min, max);
+    }
+    
+    static long toCents(BigDecimal price) {
+        return price != null ? price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue() : 0L;
+    }
+}
@@ -1,50 +1,109 @@
 package com.universalcrud.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.universalcrud.dto.ProductFacets;
+import com.universalcrud.dto.ProductQuery;
+import com.universalcrud.dto.ProductQueryResult;
+import com.universalcrud.dto.StockMovement.Cause;
 import com.universalcrud.entity.Product;
 import com.universalcrud.entity.Category;
 import com.universalcrud.entity.User;
 import com.universalcrud.repository.ProductRepository;
 import com.universalcrud.repository.CategoryRepository;
+import com.universalcrud.repository.ProductCursor;
+import com.universalcrud.repository.ProductSort;
+import com.universalcrud.repository.ProductSpecifications;
+import com.universalcrud.service.UniqueKeyFilters.Key;
+import com.universalcrud.util.AfterCommit;
+import com.universalcrud.util.IdBlockAllocator;
+import com.universalcrud.util.MergePatch;
+import com.universalcrud.util.PageRequests;
+import com.universalcrud.util.UniqueConstraints;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+// Reads run in read-only transactions: Hibernate skips dirty-check snapshots and never flushes, and
+// the queries of one call see one connection. Mutators each run as a single write transaction.
 @Service
+@Transactional(readOnly = true)
 public class ProductService {
     
+    private static final Set<String> PATCHABLE_FIELDS = Set.of(
+            "name", "description", "price", "quantity", "image", "sku", "isActive", "categoryId");
+    
+    private static final String GENERATED_SKU_PREFIX = "SKU-P";
+    
     @Autowired
     private ProductRepository productRepository;
     
     @Autowired
     private CategoryRepository categoryRepository;
     
-    public List<Product> getAllProducts() {
-        return productRepository.findAll();
+    @Autowired
+    private ProductRangeIndex productRangeIndex;
+    
+    @Autowired
+    private RequestCoalescer requestCoalescer;
+    
+    @Autowired
+    private IdBlockAllocator idBlockAllocator;
+    
+    @Autowired
+    private UniqueKeyFilters uniqueKeyFilters;
+    
+    @Autowired
+    private Validator validator;
+    
+    @Autowired
+    private StockLedgerService stockLedgerService;
+    
+    @Value("${app.facets.price-bounds:10,25,50,100,250}")
+    private List<BigDecimal> priceFacetBounds;
+    
+    public Page<Product> getAllProducts(Pageable pageable) {
+        return productRepository.findAll(pageable);
     }
     
     public Optional<Product> getProductById(Long id) {
-        return productRepository.findById(id);
+        return productRepository.findByIdWithDetails(id);
     }
     
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Optional<Product> getProductWithDetails(Long id) {
-        return productRepository.findByIdWithDetails(id);
+        return requestCoalescer.execute("product-details", id,
+                () -> productRepository.findByIdWithDetails(id));
     }
     
     public Optional<Product> getProductBySku(String sku) {
         return productRepository.findBySku(sku);
     }
     
+    @Transactional
     public Product createProduct(Product product) {
         // Generate SKU if not provided
         if (product.getSku() == null || product.getSku().isEmpty()) {
             product.setSku(generateSku());
-        } else if (productRepository.existsBySku(product.getSku())) {
+        } else if (checkClientSku(product.getSku(), null) && uniqueKeyFilters.exists(Key.SKU, product.getSku(), productRepository::existsBySku)) {
             throw new RuntimeException("Product with SKU '" + product.getSku() + "' already exists");
         }
         
@@ -55,17 +114,23 @@ public class ProductService {
             product.setCategory(category);
         }
         
-        return productRepository.save(product);
+        Product savedProduct = saveWithUniqueSku(product);
+        AfterCommit.run(() -> productRangeIndex.refresh(savedProduct.getId()));
+        stockLedgerService.record(savedProduct.getId(), 0, savedProduct.getQuantity(), Cause.CREATED);
+        return savedProduct;
     }
     
+    // Loaded with its fetch plan and saved in one transaction, so the caller gets the initialised managed
+    // instance back rather than a merged copy whose category and creator are lazy proxies
+    @Transactional
     public Product updateProduct(Long id, Product productDetails) {
-        Product product = productRepository.findById(id)
+        Product product = productRepository.findByIdWithDetails(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
         
         // Check if SKU is being changed and if it's already taken
         if (productDetails.getSku() != null && 
-            !product.getSku().equals(productDetails.getSku()) && 
-            productRepository.existsBySku(productDetails.getSku())) {
+            checkClientSku(productDetails.getSku(), product.getSku()) && 
+            uniqueKeyFilters.exists(Key.SKU, productDetails.getSku(), productRepository::existsBySku)) {
             throw new RuntimeException("Product with SKU '" + productDetails.getSku() + "' already exists");
         }
         
@@ -76,6 +141,7 @@ public class ProductService {
             product.setCategory(category);
         }
         
+        Integer previousQuantity = product.getQuantity();
         product.setName(productDetails.getName());
         product.setDescription(productDetails.getDescription());
         product.setPrice(productDetails.getPrice());
@@ -87,57 +153,117 @@ public class ProductService {
             product.setSku(productDetails.getSku());
         }
         
-        return productRepository.save(product);
+        Product savedProduct = saveWithUniqueSku(product);
+        AfterCommit.run(() -> productRangeIndex.refresh(savedProduct.getId()));
+        stockLedgerService.record(id, previousQuantity, savedProduct.getQuantity(), Cause.EDITED);
+        return savedProduct;
     }
     
+    @Transactional
     public void deleteProduct(Long id) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
         productRepository.delete(product);
+        AfterCommit.run(() -> productRangeIndex.refresh(id));
+        stockLedgerService.record(id, product.getQuantity(), 0, Cause.DELETED);
+    }
+    
+    public Page<Product> getProductsByCategory(Long categoryId, Pageable pageable) {
+        return productRepository.findByCategoryId(categoryId, pageable);
+    }
+    
+    public Page<Product> getProductsByUser(User user, Pageable pageable) {
+        return productRepository.findByCreatedBy(user, pageable);
     }
     
-    public List<Product> getProductsByCategory(Long categoryId) {
-        return productRepository.findByCategoryId(categoryId);
+    public Page<Product> getActiveProducts(Pageable pageable) {
+        return productRepository.findByIsActive(true, pageable);
     }
     
-    public List<Product> getProductsByUser(User user) {
-        return productRepository.findByCreatedBy(user);
+    public Page<Product> getActiveProductsWithCategory(Pageable pageable) {
+        return productRepository.findActiveProductsWithCategory(pageable);
     }
     
-    public List<Product> getActiveProducts() {
-        return productRepository.findByIsActive(true);
+    public Page<Product> searchProductsByName(String name, Pageable pageable) {
+        return productRepository.findByNameContaining(name, pageable);
     }
     
-    public List<Product> getActiveProductsWithCategory() {
-        return productRepository.findActiveProductsWithCategory();
+    public Page<Product> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable) {
+        return loadPage(productRangeIndex.findByPriceRange(minPrice, maxPrice, pageable));
     }
     
-    public List<Product> searchProductsByName(String name) {
-        return productRepository.findByNameContaining(name);
+    public Page<Product> getLowStockProducts(Integer threshold, Pageable pageable) {
+        return loadPage(productRangeIndex.findByQuantityBelow(threshold, pageable));
     }
     
-    public List<Product> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
-        return productRepository.findByPriceBetween(minPrice, maxPrice);
+    public Page<Product> getOutOfStockProducts(Pageable pageable) {
+        return loadPage(productRangeIndex.findOutOfStock(pageable));
     }
     
-    public List<Product> getLowStockProducts(Integer threshold) {
-        return productRepository.findLowStockProducts(threshold);
+    // Served from the in-memory index; no need to open a transaction
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public long getLowStockCount(Integer threshold) {
+        return productRangeIndex.countByQuantityBelow(threshold);
     }
     
-    public List<Product> getOutOfStockProducts() {
-        return productRepository.findOutOfStockProducts();
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public long getOutOfStockCount() {
+        return productRangeIndex.countOutOfStock();
     }
     
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Page<Product> getActiveProductsPaginated(Pageable pageable) {
-        return productRepository.findByIsActiveOrderByCreatedAtDesc(true, pageable);
+        return requestCoalescer.execute("active-products", RequestCoalescer.pageKey(pageable),
+                () -> productRepository.findByIsActiveOrderByCreatedAtDesc(true, pageable));
     }
     
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Page<Product> getProductsByCategoryPaginated(Long categoryId, Pageable pageable) {
-        return productRepository.findByCategoryIdAndIsActiveOrderByCreatedAtDesc(categoryId, true, pageable);
+        return requestCoalescer.execute("category-products", categoryId + ":" + RequestCoalescer.pageKey(pageable),
+                () -> productRepository.findByCategoryIdAndIsActiveOrderByCreatedAtDesc(categoryId, true, pageable));
     }
     
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Page<Product> searchProducts(String searchTerm, Pageable pageable) {
-        return productRepository.searchActiveProducts(searchTerm, pageable);
+        return requestCoalescer.execute("product-search", RequestCoalescer.pageKey(pageable) + ":" + searchTerm,
+                () -> productRepository.searchActiveProducts(searchTerm, pageable));
+    }
+    
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ProductFacets getSearchFacets(String searchTerm) {
+        return requestCoalescer.execute("product-search-facets", searchTerm,
+                () -> productRepository.countFacets(ProductSpecifications.search(searchTerm), priceFacetBounds));
+    }
+    
+    // Ignores the cursor: facets describe the whole filtered result, whichever page is being shown
+    public ProductFacets getQueryFacets(ProductQuery query) {
+        return productRepository.countFacets(ProductSpecifications.from(query), priceFacetBounds);
+    }
+    
+    // Filters and sort are whitelisted in ProductSpecifications / ProductSort; paging is by keyset so a
+    // deep page costs the same as the first one
+    public ProductQueryResult queryProducts(ProductQuery query) {
+        String sortSpec = query.getSort() == null || query.getSort().isBlank() ? "createdAt,desc" : query.getSort();
+        ProductSort sort = ProductSort.fromAttribute(sortSpec.split(",")[0]);
+        boolean descending = ProductSort.isDescending(sortSpec);
+        int size = Math.max(1, Math.min(query.getSize() != null ? query.getSize() : 20, PageRequests.MAX_SIZE));
+        
+        Specification<Product> spec = ProductSpecifications.from(query);
+        if (query.getCursor() != null && !query.getCursor().isBlank()) {
+            ProductCursor cursor = ProductCursor.decode(query.getCursor());
+            if (cursor.sort() != sort || cursor.descending() != descending) {
+                throw new IllegalArgumentException("Cursor was issued for a different sort");
+            }
+            spec = spec.and(ProductSpecifications.after(sort, descending, sort.parse(cursor.value()), cursor.id()));
+        }
+        
+        List<Product> rows = productRepository.findSlice(spec, sort, descending, size + 1);
+        if (rows.size() <= size) {
+            return new ProductQueryResult(rows, size, null);
+        }
+        Product last = rows.get(size - 1);
+        String next = new ProductCursor(sort, descending, last.getId(), sort.valueOf(last)).encode();
+        return new ProductQueryResult(rows.subList(0, size), size, next);
     }
     
     public long getActiveProductCount() {
@@ -149,16 +275,22 @@ public class ProductService {
         return total != null ? total : BigDecimal.ZERO;
     }
     
+    @Transactional
     public Product updateStock(Long id, Integer quantity) {
-        Product product = productRepository.findById(id)
+        Product product = productRepository.findByIdWithDetails(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
         
+        Integer previousQuantity = product.getQuantity();
         product.setQuantity(quantity);
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        AfterCommit.run(() -> productRangeIndex.refresh(savedProduct.getId()));
+        stockLedgerService.record(id, previousQuantity, quantity, Cause.SET);
+        return savedProduct;
     }
     
+    @Transactional
     public Product adjustStock(Long id, Integer adjustment) {
-        Product product = productRepository.findById(id)
+        Product product = productRepository.findByIdWithDetails(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
         
         int newQuantity = product.getQuantity() + adjustment;
@@ -166,27 +298,184 @@ public class ProductService {
             throw new RuntimeException("Insufficient stock. Available: " + product.getQuantity());
         }
         
+        Integer previousQuantity = product.getQuantity();
         product.setQuantity(newQuantity);
+        Product savedProduct = productRepository.save(product);
+        AfterCommit.run(() -> productRangeIndex.refresh(savedProduct.getId()));
+        stockLedgerService.record(id, previousQuantity, newQuantity, Cause.ADJUSTED);
+        return savedProduct;
+    }
+    
+    @Transactional
+    public Product patchProduct(Long id, JsonNode patch) {
+        MergePatch changes = MergePatch.of(patch, PATCHABLE_FIELDS);
+        Product product = productRepository.findByIdWithDetails(id)
+                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        
+        Integer previousQuantity = product.getQuantity();
+        applyPatch(product, changes, Map.of());
+        Product savedProduct = saveWithUniqueSku(product);
+        AfterCommit.run(() -> productRangeIndex.refresh(savedProduct.getId()));
+        stockLedgerService.record(id, previousQuantity, savedProduct.getQuantity(), Cause.EDITED);
+        return savedProduct;
+    }
+    
+    // All or nothing in one transaction. Rows load with one IN query and flush as JDBC batches; with
+    // @DynamicUpdate, items changing the same fields share one UPDATE statement and so one batch.
+    @Transactional
+    public List<Long> patchProducts(List<JsonNode> items) {
+        Map<Long, MergePatch> patches = MergePatch.batch(items, PATCHABLE_FIELDS);
+        Map<Long, Product> products = productRepository.findAllById(patches.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<Long> missing = patches.keySet().stream().filter(id -> !products.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("Products not found: " + missing);
+        }
+        
+        List<Long> categoryIds = patches.values().stream().map(patch -> patch.get("categoryId", Long.class))
+                .filter(Objects::nonNull).distinct().toList();
+        Map<Long, Category> categories = categoryRepository.findAllById(categoryIds).stream()
+                .collect(Collectors.toMap(Category::getId, Function.identity()));
+        
+        Map<Long, Integer> previousQuantities = products.values().stream()
+                .collect(Collectors.toMap(Product::getId, Product::getQuantity));
+        patches.forEach((id, patch) -> {
+            try {
+                applyPatch(products.get(id), patch, categories);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Product " + id + ": " + e.getMessage());
+            }
+        });
+        
+        try {
+            productRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            if (UniqueConstraints.PRODUCT_SKU.equals(UniqueConstraints.violated(e))) {
+                throw new IllegalArgumentException("The batch would give two products the same SKU");
+            }
+            throw e;
+        }
+        products.values().forEach(product -> uniqueKeyFilters.add(Key.SKU, product.getSku()));
+        AfterCommit.run(() -> productRangeIndex.refresh(products.keySet()));
+        products.values().forEach(product -> stockLedgerService.record(product.getId(),
+                previousQuantities.get(product.getId()), product.getQuantity(), Cause.EDITED));
+        return new ArrayList<>(patches.keySet());
+    }
+    
+    private void applyPatch(Product product, MergePatch patch, Map<Long, Category> categories) {
+        patch.applyRequired("name", String.class, product::setName);
+        patch.apply("description", String.class, product::setDescription);
+        patch.applyRequired("price", BigDecimal.class, product::setPrice);
+        patch.applyRequired("quantity", Integer.class, product::setQuantity);
+        patch.apply("image", String.class, product::setImage);
+        patch.applyRequired("isActive", Boolean.class, product::setIsActive);
+        
+        if (patch.has("sku")) {
+            String sku = patch.get("sku", String.class);
+            if (sku == null) {
+                throw new IllegalArgumentException("'sku' cannot be null");
+            }
+            if (checkClientSku(sku, product.getSku()) && uniqueKeyFilters.exists(Key.SKU, sku, productRepository::existsBySku)) {
+                throw new RuntimeException("Product with SKU '" + sku + "' already exists");
+            }
+            product.setSku(sku);
+        }
+        
+        if (patch.has("categoryId")) {
+            Long categoryId = patch.get("categoryId", Long.class);
+            Category category = null;
+            if (categoryId != null) {
+                category = categories.get(categoryId);
+                if (category == null) {
+                    category = categoryRepository.findById(categoryId)
+                            .orElseThrow(() -> new RuntimeException("Category not found with id: " + categoryId));
+                }
+            }
+            product.setCategory(category);
+        }
+        
+        Set<ConstraintViolation<Product>> violations = validator.validate(product);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream().map(ConstraintViolation::getMessage).sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+    }
+    
+    @Transactional
+    public Product updateImage(Long id, String imageUrl) {
+        Product product = productRepository.findByIdWithDetails(id)
+                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        
+        product.setImage(imageUrl);
         return productRepository.save(product);
     }
     
+    @Transactional
     public Product toggleProductStatus(Long id) {
-        Product product = productRepository.findById(id)
+        Product product = productRepository.findByIdWithDetails(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
         
         product.setIsActive(!product.getIsActive());
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        AfterCommit.run(() -> productRangeIndex.refresh(savedProduct.getId()));
+        return savedProduct;
+    }
+    
+    // Index pages carry ids only; fetch the rows by primary key and restore index order
+    private Page<Product> loadPage(Page<Long> ids) {
+        if (ids.isEmpty()) {
+            return new PageImpl<>(List.of(), ids.getPageable(), ids.getTotalElements());
+        }
+        Map<Long, Product> products = productRepository.findAllWithDetailsByIdIn(ids.getContent()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<Product> content = ids.getContent().stream()
+                .map(products::get)
+                .filter(product -> product != null)
+                .collect(Collectors.toList());
+        return new PageImpl<>(content, ids.getPageable(), ids.getTotalElements());
     }
     
+    // The unique constraint settles races the existence check can't see; flushing makes a violation
+    // surface here even when the caller's transaction would otherwise only write at commit
+    private Product saveWithUniqueSku(Product product) {
+        Product savedProduct;
+        try {
+            savedProduct = productRepository.saveAndFlush(product);
+        } catch (DataIntegrityViolationException e) {
+            if (UniqueConstraints.PRODUCT_SKU.equals(UniqueConstraints.violated(e))) {
+                throw new RuntimeException("Product with SKU '" + product.getSku() + "' already exists");
+            }
+            throw e;
+        }
+        uniqueKeyFilters.add(Key.SKU, savedProduct.getSku());
+        return savedProduct;
+    }
+    
+    // "SKU-P" + 7 base-36 digits from a reserved block: unique without lookups, and the 'P' keeps
+    // the range apart from the older random 8-hex-digit SKUs
     private String generateSku() {
-        String sku;
-        do {
-            sku = "SKU-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-        } while (productRepository.existsBySku(sku));
-        return sku;
+        return formatSku(idBlockAllocator.next("product_skus"));
+    }
+    
+    public static String formatSku(long sequence) {
+        String value = Long.toString(sequence, 36).toUpperCase();
+        return GENERATED_SKU_PREFIX + "0".repeat(Math.max(0, 7 - value.length())) + value;
+    }
+    
+    // Returns whether sku differs from the product's current one. The generated range is reserved: a client
+    // SKU inside it would make a later generateSku() fail on the unique constraint. A product may keep the
+    // generated SKU it already has.
+    private static boolean checkClientSku(String sku, String current) {
+        if (sku.equals(current)) {
+            return false;
+        }
+        if (sku.startsWith(GENERATED_SKU_PREFIX)) {
+            throw new IllegalArgumentException("SKUs starting with '" + GENERATED_SKU_PREFIX + "' are reserved for generated SKUs");
+        }
+        return true;
     }
     
     public boolean existsBySku(String sku) {
-        return productRepository.existsBySku(sku);
+        return uniqueKeyFilters.exists(Key.SKU, sku, productRepository::existsBySku);
     }
 }
@@ -0,0 +1,215 @@
+package com.universalcrud.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Ordered set of (value, id) keys whose nodes carry subtree sizes, so counting a value range, ranking
+// a value and fetching the k-th key are all O(log n). A treap: random priorities keep it balanced in
+// expectation. Readers share a lock and writers hold it exclusively.
+final class RankedKeySet {
+    
+    private static final class Node {
+        final long value;
+        final long id;
+        final int priority;
+        int size = 1;
+        Node left;
+        Node right;
+        
+        Node(long value, long id, int priority) {
+            this.value = value;
+            this.id = id;
+            this.priority = priority;
+        }
+    }
+    
+    record Slice(List<Long> ids, long total) {
+    }
+    
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root;
+    
+    void add(long value, long id) {
+        lock.writeLock().lock();
+        try {
+            root = insert(root, new Node(value, id, ThreadLocalRandom.current().nextInt()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    void remove(long value, long id) {
+        lock.writeLock().lock();
+        try {
+            root = delete(root, value, id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            root = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // Keys with min <= value <= max
+    long count(long min, long max) {
+        lock.readLock().lock();
+        try {
+            return min > max ? 0 : countAtMost(max) - countBelow(min);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Ids of keys with min <= value <= max in key order, skipping offset and taking at most limit
+    Slice slice(long min, long max, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            if (min > max) {
+                return new Slice(List.of(), 0);
+            }
+            long first = countBelow(min);
+            long total = countAtMost(max) - first;
+            long end = Math.min(total, offset + limit);
+            List<Long> ids = new ArrayList<>((int) Math.max(0, end - offset));
+            for (long i = offset; i < end; i++) {
+                ids.add(select(first + i).id);
+            }
+            return new Slice(ids, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private long countBelow(long value) {
+        long count = 0;
+        Node node = root;
+        while (node != null) {
+            if (node.value < value) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+    
+    private long countAtMost(long value) {
+        long count = 0;
+        Node node = root;
+        while (node != null) {
+            if (node.value <= value) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+    
+    // The key at zero-based position rank
+    private Node select(long rank) {
+        Node node = root;
+        while (true) {
+            int left = size(node.left);
+            if (rank < left) {
+                node = node.left;
+            } else if (rank == left) {
+                return node;
+            } else {
+                rank -= left + 1;
+                node = node.right;
+            }
+        }
+    }
+    
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (added.priority > node.priority) {
+            Node[] parts = split(node, added.value, added.id);
+            added.left = parts[0];
+            added.right = parts[1];
+            return update(added);
+        }
+        if (compare(added.value, added.id, node) < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return update(node);
+    }
+    
+    private static Node delete(Node node, long value, long id) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(value, id, node);
+        if (cmp == 0) {
+            return merge(node.left, node.right);
+        }
+        if (cmp < 0) {
+            node.left = delete(node.left, value, id);
+        } else {
+            node.right = delete(node.right, value, id);
+        }
+        return update(node);
+    }
+    
+    // Keys before (value, id) and the rest
+    private static Node[] split(Node node, long value, long id) {
+        if (node == null) {
+            return new Node[2];
+        }
+        if (compare(value, id, node) > 0) {
+            Node[] parts = split(node.right, value, id);
+            node.right = parts[0];
+            parts[0] = update(node);
+            return parts;
+        }
+        Node[] parts = split(node.left, value, id);
+        node.left = parts[1];
+        parts[1] = update(node);
+        return parts;
+    }
+    
+    // Every key of low sorts before every key of high
+    private static Node merge(Node low, Node high) {
+        if (low == null) {
+            return high;
+        }
+        if (high == null) {
+            return low;
+        }
+        if (low.priority > high.priority) {
+            low.right = merge(low.right, high);
+            return update(low);
+        }
+        high.left = merge(low, high.left);
+        return update(high);
+    }
+    
+    private static int compare(long value, long id, Node node) {
+        int cmp = Long.compare(value, node.value);
+        return cmp != 0 ? cmp : Long.compare(id, node.id);
+    }
+    
+    private static int size(Node node) {
+        return node != null ? node.size : 0;
+    }
+    
+    private static Node update(Node node) {
+        node.size = size(node.left) + size(node.right) + 1;
+        return node;
+    }
+}
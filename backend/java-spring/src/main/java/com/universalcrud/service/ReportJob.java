@@ -0,0 +1,155 @@
+package com.universalcrud.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+
+// State of one submitted report. Serialised as-is for status polling and progress events;
+// the result and the plumbing behind it stay out of the JSON.
+public class ReportJob {
+    
+    public enum Type {
+        INVENTORY_VALUATION, STOCK_AGING, LOW_STOCK
+    }
+    
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED;
+        
+        public boolean isFinished() {
+            return this == COMPLETED || this == FAILED || this == CANCELLED;
+        }
+    }
+    
+    private final String id;
+    private final Type type;
+    private final Map<String, Object> parameters;
+    private final String requestedBy;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    
+    private volatile Status status = Status.QUEUED;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+    private volatile long processed;
+    private volatile long total;
+    private volatile Object result;
+    private volatile Future<?> future;
+    private volatile long lastProgressEventAt;
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    
+    public ReportJob(String id, Type type, Map<String, Object> parameters, String requestedBy) {
+        this.id = id;
+        this.type = type;
+        this.parameters = parameters;
+        this.requestedBy = requestedBy;
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    public Type getType() {
+        return type;
+    }
+    
+    public Map<String, Object> getParameters() {
+        return parameters;
+    }
+    
+    public String getRequestedBy() {
+        return requestedBy;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public Status getStatus() {
+        return status;
+    }
+    
+    void setStatus(Status status) {
+        this.status = status;
+    }
+    
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+    
+    void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+    
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+    
+    void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    void setError(String error) {
+        this.error = error;
+    }
+    
+    public long getProcessed() {
+        return processed;
+    }
+    
+    void setProcessed(long processed) {
+        this.processed = processed;
+    }
+    
+    public long getTotal() {
+        return total;
+    }
+    
+    void setTotal(long total) {
+        this.total = total;
+    }
+    
+    public int getProgress() {
+        if (status == Status.COMPLETED) {
+            return 100;
+        }
+        return total > 0 ? (int) Math.min(99, processed * 100 / total) : 0;
+    }
+    
+    @JsonIgnore
+    public Object getResult() {
+        return result;
+    }
+    
+    void setResult(Object result) {
+        this.result = result;
+    }
+    
+    Future<?> getFuture() {
+        return future;
+    }
+    
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+    
+    long getLastProgressEventAt() {
+        return lastProgressEventAt;
+    }
+    
+    void setLastProgressEventAt(long lastProgressEventAt) {
+        this.lastProgressEventAt = lastProgressEventAt;
+    }
+    
+    List<SseEmitter> getEmitters() {
+        return emitters;
+    }
+}
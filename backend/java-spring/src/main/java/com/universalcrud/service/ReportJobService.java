@@ -0,0 +1,269 @@
+package com.universalcrud.service;
+
+import com.universalcrud.dto.ReportRequest;
+import com.universalcrud.dto.StockRow;
+import com.universalcrud.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+// Runs inventory reports off the request threads. Jobs go to a small bounded pool; each worker streams
+// the active product rows in one read-only transaction, so a report holds at most one connection
+// and never a Tomcat thread. Finished jobs and their results are kept until the TTL sweep drops them.
+@Service
+public class ReportJobService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobService.class);
+    
+    private static final int CHUNK_SIZE = 1000;
+    private static final long PROGRESS_EVENT_INTERVAL_MS = 250;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${app.reports.workers:2}")
+    private int workers;
+    
+    @Value("${app.reports.queue-capacity:20}")
+    private int queueCapacity;
+    
+    @Value("${app.reports.max-jobs:100}")
+    private int maxJobs;
+    
+    @Value("${app.reports.ttl-minutes:60}")
+    private long ttlMinutes;
+    
+    @Value("${app.reports.sse-timeout-ms:600000}")
+    private long sseTimeoutMs;
+    
+    private final ConcurrentHashMap<String, ReportJob> jobs = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+    private TransactionTemplate readOnlyTransaction;
+    
+    @PostConstruct
+    public void init() {
+        AtomicInteger threads = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "report-worker-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    // Throws RejectedExecutionException when the queue or the retained job limit is full
+    public ReportJob submit(ReportRequest request, String requestedBy) {
+        if (jobs.size() >= maxJobs) {
+            sweepExpired();
+            if (jobs.size() >= maxJobs) {
+                throw new RejectedExecutionException("Too many retained report jobs, try again later");
+            }
+        }
+        
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        if (request.getType() == ReportJob.Type.LOW_STOCK) {
+            parameters.put("threshold", request.getThreshold() != null ? request.getThreshold() : 10);
+            parameters.put("limit", request.getLimit() != null ? request.getLimit() : 1000);
+        }
+        
+        ReportJob job = new ReportJob(UUID.randomUUID().toString(), request.getType(), parameters, requestedBy);
+        jobs.put(job.getId(), job);
+        try {
+            job.setFuture(executor.submit(() -> run(job)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw new RejectedExecutionException("Report queue is full, try again later");
+        }
+        logger.info("Report job {} ({}) submitted by {}", job.getId(), job.getType(), requestedBy);
+        return job;
+    }
+    
+    public Optional<ReportJob> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+    
+    public List<ReportJob> getJobs() {
+        List<ReportJob> list = new ArrayList<>(jobs.values());
+        list.sort(Comparator.comparing(ReportJob::getCreatedAt).reversed());
+        return list;
+    }
+    
+    // Cancels a queued or running job; a finished job is discarded together with its result
+    public boolean cancel(String id) {
+        ReportJob job = jobs.get(id);
+        if (job == null) {
+            return false;
+        }
+        synchronized (job) {
+            if (job.getStatus().isFinished()) {
+                jobs.remove(id);
+                completeEmitters(job);
+                return true;
+            }
+            finish(job, ReportJob.Status.CANCELLED, null, null);
+        }
+        // No interrupt: a running worker notices the status at its next chunk and closes its cursor cleanly
+        if (job.getFuture() != null) {
+            job.getFuture().cancel(false);
+        }
+        return true;
+    }
+    
+    public SseEmitter subscribe(String id) {
+        ReportJob job = jobs.get(id);
+        if (job == null) {
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        emitter.onCompletion(() -> job.getEmitters().remove(emitter));
+        emitter.onTimeout(() -> job.getEmitters().remove(emitter));
+        emitter.onError(error -> job.getEmitters().remove(emitter));
+        
+        synchronized (job) {
+            try {
+                emitter.send(SseEmitter.event().name("status").data(job));
+                if (job.getStatus().isFinished()) {
+                    emitter.complete();
+                } else {
+                    job.getEmitters().add(emitter);
+                }
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+        }
+        return emitter;
+    }
+    
+    @Scheduled(fixedDelayString = "${app.reports.sweep-interval-ms:60000}")
+    public void sweepExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(ttlMinutes);
+        jobs.values().removeIf(job -> job.getStatus().isFinished()
+                && job.getFinishedAt() != null && job.getFinishedAt().isBefore(cutoff));
+    }
+    
+    private void run(ReportJob job) {
+        synchronized (job) {
+            if (job.getStatus() != ReportJob.Status.QUEUED) {
+                return;
+            }
+            job.setStatus(ReportJob.Status.RUNNING);
+            job.setStartedAt(LocalDateTime.now());
+        }
+        publish(job, "status");
+        
+        long start = System.currentTimeMillis();
+        try {
+            InventoryReports.Accumulator accumulator = InventoryReports.create(job);
+            readOnlyTransaction.executeWithoutResult(status -> {
+                job.setTotal(productRepository.countActiveProducts());
+                long processed = 0;
+                try (Stream<StockRow> rows = productRepository.streamActiveStockRows()) {
+                    for (StockRow row : (Iterable<StockRow>) rows::iterator) {
+                        accumulator.accept(row);
+                        if (++processed % CHUNK_SIZE == 0) {
+                            checkCancelled(job);
+                            job.setProcessed(processed);
+                            publishProgress(job);
+                        }
+                    }
+                }
+                job.setProcessed(processed);
+            });
+            
+            Map<String, Object> result = accumulator.result();
+            synchronized (job) {
+                if (job.getStatus() == ReportJob.Status.RUNNING) {
+                    finish(job, ReportJob.Status.COMPLETED, result, null);
+                }
+            }
+            logger.info("Report job {} ({}) finished {} rows in {} ms", job.getId(), job.getType(),
+                    job.getProcessed(), System.currentTimeMillis() - start);
+        } catch (CancellationException e) {
+            logger.info("Report job {} cancelled after {} rows", job.getId(), job.getProcessed());
+        } catch (RuntimeException e) {
+            logger.warn("Report job {} ({}) failed: {}", job.getId(), job.getType(), e.getMessage());
+            synchronized (job) {
+                if (job.getStatus() == ReportJob.Status.RUNNING) {
+                    finish(job, ReportJob.Status.FAILED, null, e.getMessage());
+                }
+            }
+        }
+    }
+    
+    private void checkCancelled(ReportJob job) {
+        if (job.getStatus() == ReportJob.Status.CANCELLED) {
+            throw new CancellationException("Report job " + job.getId() + " was cancelled");
+        }
+    }
+    
+    private void finish(ReportJob job, ReportJob.Status status, Object result, String error) {
+        job.setResult(result);
+        job.setError(error);
+        job.setFinishedAt(LocalDateTime.now());
+        job.setStatus(status);
+        publish(job, "status");
+        completeEmitters(job);
+    }
+    
+    private void publishProgress(ReportJob job) {
+        long now = System.currentTimeMillis();
+        if (now - job.getLastProgressEventAt() >= PROGRESS_EVENT_INTERVAL_MS) {
+            job.setLastProgressEventAt(now);
+            publish(job, "progress");
+        }
+    }
+    
+    private void publish(ReportJob job, String event) {
+        for (SseEmitter emitter : job.getEmitters()) {
+            try {
+                emitter.send(SseEmitter.event().name(event).data(job));
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; the emitter callbacks take it off the list
+                job.getEmitters().remove(emitter);
+            }
+        }
+    }
+    
+    private void completeEmitters(ReportJob job) {
+        for (SseEmitter emitter : job.getEmitters()) {
+            emitter.complete();
+        }
+        job.getEmitters().clear();
+    }
+}
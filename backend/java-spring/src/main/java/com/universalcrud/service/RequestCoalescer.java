@@ -0,0 +1,125 @@
+package com.universalcrud.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Single-flight execution of identical concurrent reads: the first caller for a key runs the query,
+// callers arriving while it is in flight wait for and share its result instead of hitting the database.
+// Shared results must be fully initialised, since they are handed to several request threads.
+// Loaders run in their own read-only transaction, so callers must not hold one (and its connection)
+// while they wait: coalesced service methods are declared NOT_SUPPORTED.
+@Component
+public class RequestCoalescer {
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${app.coalescing.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.coalescing.timeout-ms:5000}")
+    private long timeoutMs;
+    
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Meters> meters = new ConcurrentHashMap<>();
+    private TransactionTemplate readOnlyTransaction;
+    
+    private class Meters {
+        final Counter executed;
+        final Counter coalesced;
+        final Counter timedOut;
+        
+        Meters(String name) {
+            executed = Counter.builder("app.coalescing.requests").tag("name", name).tag("outcome", "executed")
+                    .register(meterRegistry);
+            coalesced = Counter.builder("app.coalescing.requests").tag("name", name).tag("outcome", "coalesced")
+                    .register(meterRegistry);
+            timedOut = Counter.builder("app.coalescing.requests").tag("name", name).tag("outcome", "timeout")
+                    .register(meterRegistry);
+            Gauge.builder("app.coalescing.ratio", this, Meters::ratio).tag("name", name)
+                    .description("Share of reads served from another request's in-flight query")
+                    .register(meterRegistry);
+        }
+        
+        double ratio() {
+            double total = executed.count() + coalesced.count();
+            return total == 0 ? 0 : coalesced.count() / total;
+        }
+    }
+    
+    @PostConstruct
+    public void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+    
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String name, Object key, Supplier<T> query) {
+        Supplier<T> loader = () -> readOnlyTransaction.execute(status -> query.get());
+        if (!enabled) {
+            return loader.get();
+        }
+        
+        Meters stats = meters.computeIfAbsent(name, Meters::new);
+        String flightKey = name + ':' + key;
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(flightKey, flight);
+        
+        if (existing == null) {
+            stats.executed.increment();
+            try {
+                T result = loader.get();
+                flight.complete(result);
+                return result;
+            } catch (RuntimeException | Error e) {
+                flight.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(flightKey, flight);
+            }
+        }
+        
+        try {
+            T result = (T) existing.get(timeoutMs, TimeUnit.MILLISECONDS);
+            stats.coalesced.increment();
+            return result;
+        } catch (TimeoutException e) {
+            // The leader is stuck; don't chain every waiter to it, run the query ourselves
+            stats.timedOut.increment();
+            return loader.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for an in-flight request", e);
+        }
+    }
+    
+    public static String pageKey(Pageable pageable) {
+        return pageable.getPageNumber() + ":" + pageable.getPageSize() + ":" + pageable.getSort();
+    }
+}
@@ -0,0 +1,102 @@
+package com.universalcrud.service;
+
+import com.universalcrud.dto.StockMovement;
+import com.universalcrud.dto.StockMovement.Cause;
+import com.universalcrud.entity.StockLedgerSegment;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+// Packs a run of movements into a segment body. Per movement: zigzag varints of the milliseconds and of
+// the quantity change since the previous movement (the first against the segment's start), the cause
+// ordinal, and a varint of userId + 1 (0 for none). A typical movement takes 4-6 bytes.
+final class StockLedgerCodec {
+    
+    // Worst case per movement is 10 + 5 + 1 + 10 bytes; keeps any segment inside its column
+    static final int MAX_MOVEMENTS = StockLedgerSegment.MAX_MOVEMENT_BYTES / 26;
+    
+    private static final Cause[] CAUSES = Cause.values();
+    
+    private StockLedgerCodec() {
+    }
+    
+    static StockLedgerSegment segment(Long productId, int startQuantity, List<StockMovement> movements) {
+        if (movements.isEmpty() || movements.size() > MAX_MOVEMENTS) {
+            throw new IllegalArgumentException("A segment holds 1 to " + MAX_MOVEMENTS + " movements");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(movements.size() * 6);
+        StockMovement first = movements.get(0);
+        StockMovement last = movements.get(movements.size() - 1);
+        long previousAt = toMillis(first.at());
+        long previousQuantity = startQuantity;
+        for (StockMovement movement : movements) {
+            long at = toMillis(movement.at());
+            writeVarLong(out, zigzag(at - previousAt));
+            writeVarLong(out, zigzag(movement.quantity() - previousQuantity));
+            out.write(movement.cause().ordinal());
+            writeVarLong(out, movement.userId() != null ? movement.userId() + 1 : 0);
+            previousAt = at;
+            previousQuantity = movement.quantity();
+        }
+        return new StockLedgerSegment(productId, first.at(), last.at(), startQuantity, last.quantity(),
+                movements.size(), out.toByteArray());
+    }
+    
+    static List<StockMovement> decode(StockLedgerSegment segment) {
+        byte[] data = segment.getMovements();
+        int count = segment.getMovementCount();
+        List<StockMovement> movements = new ArrayList<>(count);
+        int[] position = {0};
+        long at = toMillis(segment.getStartAt());
+        int quantity = segment.getStartQuantity();
+        for (int i = 0; i < count; i++) {
+            at += unzigzag(readVarLong(data, position));
+            int delta = (int) unzigzag(readVarLong(data, position));
+            quantity += delta;
+            Cause cause = CAUSES[data[position[0]++]];
+            long user = readVarLong(data, position);
+            movements.add(new StockMovement(fromMillis(at), delta, quantity, cause, user != 0 ? user - 1 : null));
+        }
+        return movements;
+    }
+    
+    static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+    
+    static LocalDateTime fromMillis(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+    
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+    
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+    
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+    
+    private static long readVarLong(byte[] data, int[] position) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = data[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint in stock ledger segment");
+    }
+}
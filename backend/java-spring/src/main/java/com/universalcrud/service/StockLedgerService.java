@@ -0,0 +1,422 @@
+package com.universalcrud.service;
+
+import com.universalcrud.dto.StockBucket;
+import com.universalcrud.dto.StockMovement;
+import com.universalcrud.dto.StockMovement.Cause;
+import com.universalcrud.entity.StockLedgerEntry;
+import com.universalcrud.entity.StockLedgerSegment;
+import com.universalcrud.entity.User;
+import com.universalcrud.repository.StockLedgerEntryRepository;
+import com.universalcrud.repository.StockLedgerSegmentRepository;
+import com.universalcrud.util.AfterCommit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// Stock movement history. Each stock change inserts a StockLedgerEntry in its own transaction, so the
+// movement commits or rolls back with the change. Every flush interval the segment writer packs entries
+// older than settle-ms into one segment row per product (see StockLedgerSegment) and deletes them, in one
+// transaction. Compaction later merges a product's small settled segments into full ones. Queries seek to
+// the segment covering their start time, decode only the segments inside the range, and append the
+// entries not yet packed.
+// Several nodes may run the writers at once, so the work is claimed with row locks in the database: a
+// product's entries are packed by whichever node locks its oldest one, and compaction locks the segments
+// it merges. Queries read in one repeatable-read transaction, so they see a product's movements either
+// before or after a pack or merge, never halfway.
+@Service
+public class StockLedgerService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(StockLedgerService.class);
+    
+    private static final int MAX_HISTORY_LIMIT = 5000;
+    private static final int MAX_BUCKETS = 10000;
+    private static final int COMPACTION_BATCH = 100;
+    private static final int FLUSH_BATCH = 5000;
+    private static final int FLUSH_PRODUCTS = 500;
+    
+    @Autowired
+    private StockLedgerSegmentRepository segmentRepository;
+    
+    @Autowired
+    private StockLedgerEntryRepository entryRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${app.stock-ledger.enabled:true}")
+    private boolean enabled;
+    
+    // Entries younger than this are left for later flushes, so a transaction that stamped its movement
+    // before an earlier-committed one has time to commit before that product's segment is written
+    @Value("${app.stock-ledger.settle-ms:5000}")
+    private long settleMs;
+    
+    @Value("${app.stock-ledger.segment-movements:512}")
+    private int segmentMovements;
+    
+    @Value("${app.stock-ledger.compact-after-minutes:60}")
+    private long compactAfterMinutes;
+    
+    private LocalDateTime lastAt = LocalDateTime.MIN;
+    private TransactionTemplate transactionTemplate;
+    private Counter recorded;
+    private Counter segmentsWritten;
+    private Counter segmentsCompacted;
+    
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        segmentMovements = Math.max(1, Math.min(segmentMovements, StockLedgerCodec.MAX_MOVEMENTS));
+        recorded = Counter.builder("app.stock-ledger.movements").tag("outcome", "recorded").register(meterRegistry);
+        segmentsWritten = Counter.builder("app.stock-ledger.segments").tag("operation", "written").register(meterRegistry);
+        segmentsCompacted = Counter.builder("app.stock-ledger.segments").tag("operation", "compacted").register(meterRegistry);
+    }
+    
+    // Joins the stock-changing transaction, so the movement is written exactly when the change is.
+    // Creation and deletion are recorded even without a quantity change, to open and close the history.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Long productId, Integer before, Integer after, Cause cause) {
+        int from = before != null ? before : 0;
+        int to = after != null ? after : 0;
+        if (!enabled || productId == null || (from == to && cause != Cause.CREATED && cause != Cause.DELETED)) {
+            return;
+        }
+        entryRepository.save(new StockLedgerEntry(productId, stamp(), from, to, cause, currentUserId()));
+        AfterCommit.run(recorded::increment);
+    }
+    
+    @Scheduled(initialDelayString = "${app.stock-ledger.flush-interval-ms:1000}",
+            fixedDelayString = "${app.stock-ledger.flush-interval-ms:1000}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime settled = LocalDateTime.now().minus(Duration.ofMillis(settleMs));
+        List<Long> productIds = entryRepository.findProductIdsWithEntriesBefore(settled, PageRequest.of(0, FLUSH_PRODUCTS));
+        for (Long productId : productIds) {
+            try {
+                Integer packed;
+                do {
+                    packed = transactionTemplate.execute(status -> writeSegments(productId, settled));
+                } while (packed != null && packed == FLUSH_BATCH);
+            } catch (RuntimeException e) {
+                // The entries stay in their table, so the next flush simply tries again
+                logger.warn("Failed to write the stock ledger segments of product {}, retrying on the next flush: {}",
+                        productId, e.getMessage());
+            }
+        }
+    }
+    
+    @Scheduled(initialDelayString = "${app.stock-ledger.compact-interval-ms:600000}",
+            fixedDelayString = "${app.stock-ledger.compact-interval-ms:600000}")
+    public void compact() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime before = LocalDateTime.now().minusMinutes(compactAfterMinutes);
+        List<Long> productIds = segmentRepository.findCompactionCandidates(before, segmentMovements,
+                PageRequest.of(0, COMPACTION_BATCH));
+        int merged = 0;
+        for (Long productId : productIds) {
+            try {
+                Integer count = transactionTemplate.execute(status -> compactProduct(productId, before));
+                merged += count != null ? count : 0;
+            } catch (RuntimeException e) {
+                logger.warn("Failed to compact the stock ledger of product {}: {}", productId, e.getMessage());
+            }
+        }
+        if (merged > 0) {
+            segmentsCompacted.increment(merged);
+            logger.info("Compacted {} stock ledger segments of {} products", merged, productIds.size());
+        }
+    }
+    
+    // Stock level after the last movement at or before time; empty when none is recorded
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public Optional<Integer> getQuantityAt(Long productId, LocalDateTime time) {
+        return Optional.ofNullable(quantityAt(productId, time, true));
+    }
+    
+    // Movements in [from, to), oldest first, at most limit of them
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public List<StockMovement> getMovements(Long productId, LocalDateTime from, LocalDateTime to, int limit) {
+        checkRange(from, to);
+        int max = Math.max(1, Math.min(limit, MAX_HISTORY_LIMIT));
+        List<StockMovement> movements = new ArrayList<>();
+        forEachMovement(productId, from, to, movement -> movements.add(movement) && movements.size() < max);
+        return movements;
+    }
+    
+    // Units in and out per minute, hour or day bucket over [from, to); buckets align to the unit and
+    // empty ones are included, so the result is a complete series
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public List<StockBucket> getBuckets(Long productId, LocalDateTime from, LocalDateTime to, String bucket) {
+        checkRange(from, to);
+        ChronoUnit unit = switch (bucket.toLowerCase()) {
+            case "minute" -> ChronoUnit.MINUTES;
+            case "hour" -> ChronoUnit.HOURS;
+            case "day" -> ChronoUnit.DAYS;
+            default -> throw new IllegalArgumentException("bucket must be one of minute, hour, day");
+        };
+        LocalDateTime start = from.truncatedTo(unit);
+        long width = unit.getDuration().toMillis();
+        long startMillis = StockLedgerCodec.toMillis(start);
+        int count = (int) Math.min(MAX_BUCKETS + 1L, (StockLedgerCodec.toMillis(to) - startMillis + width - 1) / width);
+        if (count > MAX_BUCKETS) {
+            throw new IllegalArgumentException("Range spans more than " + MAX_BUCKETS + " " + bucket + " buckets");
+        }
+        
+        long[] unitsIn = new long[count];
+        long[] unitsOut = new long[count];
+        int[] movements = new int[count];
+        Integer[] closing = new Integer[count];
+        Integer opening = quantityAt(productId, start, false);
+        forEachMovement(productId, start, to, movement -> {
+            int index = (int) ((StockLedgerCodec.toMillis(movement.at()) - startMillis) / width);
+            if (movement.delta() > 0) {
+                unitsIn[index] += movement.delta();
+            } else {
+                unitsOut[index] -= movement.delta();
+            }
+            movements[index]++;
+            closing[index] = movement.quantity();
+            return true;
+        });
+        
+        List<StockBucket> buckets = new ArrayList<>(count);
+        Integer level = opening;
+        for (int i = 0; i < count; i++) {
+            if (closing[i] != null) {
+                level = closing[i];
+            }
+            buckets.add(new StockBucket(start.plus(Duration.ofMillis(i * width)), unitsIn[i], unitsOut[i], movements[i], level));
+        }
+        return buckets;
+    }
+    
+    private interface MovementVisitor {
+        // Returns false to stop
+        boolean visit(StockMovement movement);
+    }
+    
+    // Streams segments and entries one at a time, so memory stays flat however wide the range is, and stops
+    // reading as soon as the visitor has had enough
+    private void forEachMovement(Long productId, LocalDateTime from, LocalDateTime to, MovementVisitor visitor) {
+        // Start at the segment covering from; later ones in range are then contiguous in the index
+        LocalDateTime floor = segmentRepository
+                .findFirstByProductIdAndStartAtLessThanEqualOrderByStartAtDescEndAtDesc(productId, from)
+                .map(StockLedgerSegment::getStartAt).orElse(from);
+        try (Stream<StockLedgerSegment> segments = segmentRepository
+                .streamByProductIdAndStartAtGreaterThanEqualAndStartAtLessThanOrderByStartAtAscEndAtAsc(productId, floor, to)) {
+            for (StockLedgerSegment segment : (Iterable<StockLedgerSegment>) segments::iterator) {
+                if (segment.getEndAt().isBefore(from)) {
+                    continue;
+                }
+                for (StockMovement movement : StockLedgerCodec.decode(segment)) {
+                    if (!visitInRange(movement, from, to, visitor)) {
+                        return;
+                    }
+                }
+            }
+        }
+        try (Stream<StockLedgerEntry> entries = entryRepository
+                .streamByProductIdAndAtGreaterThanEqualAndAtLessThanOrderByAtAscIdAsc(productId, from, to)) {
+            // Deltas run from the level the previous entry left, as chain() does
+            Integer previous = null;
+            for (StockLedgerEntry entry : (Iterable<StockLedgerEntry>) entries::iterator) {
+                if (!visitInRange(toMovement(entry, previous), from, to, visitor)) {
+                    return;
+                }
+                previous = entry.getAfterQuantity();
+            }
+        }
+    }
+    
+    // Returns false once the range is exhausted or the visitor stops
+    private static boolean visitInRange(StockMovement movement, LocalDateTime from, LocalDateTime to,
+                                        MovementVisitor visitor) {
+        if (movement.at().isBefore(from)) {
+            return true;
+        }
+        return movement.at().isBefore(to) && visitor.visit(movement);
+    }
+    
+    private Integer quantityAt(Long productId, LocalDateTime time, boolean inclusive) {
+        // Entries not yet packed are all later than the segments, so the latest one wins
+        Optional<StockLedgerEntry> entry = inclusive
+                ? entryRepository.findFirstByProductIdAndAtLessThanEqualOrderByAtDescIdDesc(productId, time)
+                : entryRepository.findFirstByProductIdAndAtLessThanOrderByAtDescIdDesc(productId, time);
+        if (entry.isPresent()) {
+            return entry.get().getAfterQuantity();
+        }
+        Optional<StockLedgerSegment> segment = inclusive
+                ? segmentRepository.findFirstByProductIdAndStartAtLessThanEqualOrderByStartAtDescEndAtDesc(productId, time)
+                : segmentRepository.findFirstByProductIdAndStartAtLessThanOrderByStartAtDescEndAtDesc(productId, time);
+        if (segment.isEmpty()) {
+            return null;
+        }
+        StockLedgerSegment found = segment.get();
+        if (found.getEndAt().isBefore(time) || (inclusive && found.getEndAt().isEqual(time))) {
+            // The checkpoint at the end makes decoding unnecessary
+            return found.getEndQuantity();
+        }
+        return lastQuantity(StockLedgerCodec.decode(found), time, inclusive);
+    }
+    
+    private static Integer lastQuantity(List<StockMovement> movements, LocalDateTime time, boolean inclusive) {
+        Integer quantity = null;
+        for (StockMovement movement : movements) {
+            if (movement.at().isAfter(time) || (!inclusive && movement.at().isEqual(time))) {
+                break;
+            }
+            quantity = movement.quantity();
+        }
+        return quantity;
+    }
+    
+    // Stamped under a lock so one product's entries never go back in time within this process
+    private synchronized LocalDateTime stamp() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        lastAt = now.isAfter(lastAt) ? now : lastAt;
+        return lastAt;
+    }
+    
+    // Deltas run from the level the previous movement left, the first from its own starting level
+    private static List<StockMovement> chain(List<StockLedgerEntry> entries) {
+        List<StockMovement> movements = new ArrayList<>(entries.size());
+        Integer previous = null;
+        for (StockLedgerEntry entry : entries) {
+            movements.add(toMovement(entry, previous));
+            previous = entry.getAfterQuantity();
+        }
+        return movements;
+    }
+    
+    private static StockMovement toMovement(StockLedgerEntry entry, Integer previous) {
+        int from = previous != null ? previous : entry.getBeforeQuantity();
+        return new StockMovement(entry.getAt(), entry.getAfterQuantity() - from, entry.getAfterQuantity(),
+                entry.getCause(), entry.getUserId());
+    }
+    
+    // Packs up to FLUSH_BATCH of one product's settled entries into segments and deletes them. Returns the
+    // number packed. The entries are locked with SKIP LOCKED; unless that includes the product's oldest
+    // entry, another node is packing the product and this one backs off, so each product is packed by one
+    // node at a time and in order.
+    private int writeSegments(Long productId, LocalDateTime settled) {
+        List<StockLedgerEntry> entries = entryRepository.lockSettled(productId, settled, PageRequest.of(0, FLUSH_BATCH));
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        Long oldest = entryRepository.findFirstByProductIdOrderByAtAscIdAsc(productId).map(StockLedgerEntry::getId)
+                .orElse(null);
+        if (!entries.get(0).getId().equals(oldest)) {
+            return 0;
+        }
+        // A transaction that outlived settle-ms may commit a movement stamped before the product's last
+        // segment ends; it is moved up to that end so segments still never overlap
+        LocalDateTime floor = segmentRepository.findFirstByProductIdOrderByStartAtDescEndAtDesc(productId)
+                .map(StockLedgerSegment::getEndAt).orElse(LocalDateTime.MIN);
+        List<StockMovement> movements = new ArrayList<>(entries.size());
+        for (StockMovement movement : chain(entries)) {
+            floor = movement.at().isAfter(floor) ? movement.at() : floor;
+            movements.add(new StockMovement(floor, movement.delta(), movement.quantity(), movement.cause(),
+                    movement.userId()));
+        }
+        List<StockLedgerSegment> segments = new ArrayList<>();
+        int startQuantity = entries.get(0).getBeforeQuantity();
+        for (int i = 0; i < movements.size(); i += segmentMovements) {
+            List<StockMovement> run = movements.subList(i, Math.min(i + segmentMovements, movements.size()));
+            segments.add(StockLedgerCodec.segment(productId, startQuantity, run));
+            startQuantity = run.get(run.size() - 1).quantity();
+        }
+        segmentRepository.saveAll(segments);
+        entryRepository.deleteAllInBatch(entries);
+        segmentsWritten.increment(segments.size());
+        return entries.size();
+    }
+    
+    // Merges runs of adjacent settled segments whose checkpoints line up into segments of up to
+    // segmentMovements movements. Returns the number of segments replaced.
+    private int compactProduct(Long productId, LocalDateTime before) {
+        LocalDateTime first = segmentRepository.findFirstCompactableStart(productId, before, segmentMovements);
+        if (first == null) {
+            return 0;
+        }
+        // Locked, so a node compacting the same product concurrently waits and then finds them gone
+        List<StockLedgerSegment> segments = segmentRepository.lockCompactable(productId, first, before);
+        List<StockLedgerSegment> replaced = new ArrayList<>();
+        List<StockLedgerSegment> merged = new ArrayList<>();
+        List<StockLedgerSegment> run = new ArrayList<>();
+        int runMovements = 0;
+        for (StockLedgerSegment segment : segments) {
+            boolean continues = !run.isEmpty()
+                    && run.get(run.size() - 1).getEndQuantity().equals(segment.getStartQuantity())
+                    && runMovements + segment.getMovementCount() <= segmentMovements;
+            if (!continues) {
+                mergeRun(productId, run, replaced, merged);
+                run.clear();
+                runMovements = 0;
+            }
+            run.add(segment);
+            runMovements += segment.getMovementCount();
+        }
+        mergeRun(productId, run, replaced, merged);
+        
+        if (!replaced.isEmpty()) {
+            segmentRepository.deleteAllInBatch(replaced);
+            segmentRepository.saveAll(merged);
+        }
+        return replaced.size();
+    }
+    
+    private static void mergeRun(Long productId, List<StockLedgerSegment> run, List<StockLedgerSegment> replaced,
+                                 List<StockLedgerSegment> merged) {
+        if (run.size() < 2) {
+            return;
+        }
+        List<StockMovement> movements = new ArrayList<>();
+        for (StockLedgerSegment segment : run) {
+            movements.addAll(StockLedgerCodec.decode(segment));
+        }
+        merged.add(StockLedgerCodec.segment(productId, run.get(0).getStartQuantity(), movements));
+        replaced.addAll(run);
+    }
+    
+    private static void checkRange(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+    }
+    
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof User user ? user.getId() : null;
+    }
+}
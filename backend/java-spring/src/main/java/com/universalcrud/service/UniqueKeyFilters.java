@@ -0,0 +1,183 @@
+package com.universalcrud.service;
+
+import com.universalcrud.repository.CategoryRepository;
+import com.universalcrud.repository.ProductRepository;
+import com.universalcrud.repository.UserRepository;
+import com.universalcrud.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Predicate;
+
+// Bloom filters over the unique keys, so existence checks for values that are definitely new skip the
+// database. Keys are lowercased because MySQL's default collation compares them case-insensitively.
+// Until a filter is built, and for the bits left behind by deletes and renames, lookups fall through
+// to the query; periodic rebuilds clear out the stale bits.
+@Component
+@Order(50)
+public class UniqueKeyFilters implements ApplicationRunner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(UniqueKeyFilters.class);
+    
+    public enum Key {
+        SKU, USERNAME, EMAIL, CATEGORY_NAME
+    }
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private CategoryRepository categoryRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${app.bloom.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.bloom.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+    
+    @Value("${app.bloom.min-capacity:10000}")
+    private long minCapacity;
+    
+    private final Map<Key, Slot> slots = new EnumMap<>(Key.class);
+    
+    private class Slot {
+        volatile BloomFilter live;
+        volatile BloomFilter building;
+        final Counter skipped;
+        final Counter present;
+        final Counter falsePositive;
+        
+        Slot(Key key) {
+            String name = key.name().toLowerCase(Locale.ROOT);
+            skipped = Counter.builder("app.bloom.lookups").tag("key", name).tag("outcome", "skipped").register(meterRegistry);
+            present = Counter.builder("app.bloom.lookups").tag("key", name).tag("outcome", "present").register(meterRegistry);
+            falsePositive = Counter.builder("app.bloom.lookups").tag("key", name).tag("outcome", "false-positive")
+                    .register(meterRegistry);
+        }
+    }
+    
+    @PostConstruct
+    public void init() {
+        for (Key key : Key.values()) {
+            slots.put(key, new Slot(key));
+        }
+    }
+    
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuild();
+    }
+    
+    @Scheduled(initialDelayString = "${app.bloom.rebuild-interval-ms:21600000}", fixedDelayString = "${app.bloom.rebuild-interval-ms:21600000}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        for (Key key : Key.values()) {
+            long start = System.currentTimeMillis();
+            Slot slot = slot(key);
+            BloomFilter filter = new BloomFilter(Math.max(minCapacity, count(key) * 2), falsePositiveRate);
+            // Writes committed from here on land in both filters, so nothing is lost between load and publish
+            slot.building = filter;
+            List<String> values = load(key);
+            for (String value : values) {
+                if (value != null) {
+                    filter.put(normalize(value));
+                }
+            }
+            slot.live = filter;
+            slot.building = null;
+            logger.info("Unique key filter {} built with {} values ({} bits, {} hashes) in {} ms", key, values.size(),
+                    filter.bitCount(), filter.hashFunctions(), System.currentTimeMillis() - start);
+        }
+    }
+    
+    // Runs the existence query only when the filter can't rule the value out
+    public boolean exists(Key key, String value, Predicate<String> query) {
+        if (value == null) {
+            return false;
+        }
+        Slot slot = slot(key);
+        BloomFilter filter = slot.live;
+        if (filter != null && !filter.mightContain(normalize(value))) {
+            slot.skipped.increment();
+            return false;
+        }
+        boolean exists = query.test(value);
+        (exists ? slot.present : slot.falsePositive).increment();
+        return exists;
+    }
+    
+    // For set-wise checks that batch their own query; true whenever the filter can't rule the value out
+    public boolean mightContain(Key key, String value) {
+        BloomFilter filter = slot(key).live;
+        if (filter == null || filter.mightContain(normalize(value))) {
+            return true;
+        }
+        slot(key).skipped.increment();
+        return false;
+    }
+    
+    // May be called before the row holding the value commits: a filter only errs towards "might exist",
+    // so a rolled-back add costs one false positive, which exists() settles with a query
+    public void add(Key key, String value) {
+        if (value == null) {
+            return;
+        }
+        Slot slot = slot(key);
+        String normalized = normalize(value);
+        BloomFilter building = slot.building;
+        if (building != null) {
+            building.put(normalized);
+        }
+        BloomFilter live = slot.live;
+        if (live != null) {
+            live.put(normalized);
+        }
+    }
+    
+    private Slot slot(Key key) {
+        return slots.get(key);
+    }
+    
+    private long count(Key key) {
+        return switch (key) {
+            case SKU -> productRepository.count();
+            case USERNAME, EMAIL -> userRepository.count();
+            case CATEGORY_NAME -> categoryRepository.count();
+        };
+    }
+    
+    private List<String> load(Key key) {
+        return switch (key) {
+            case SKU -> productRepository.findAllSkus();
+            case USERNAME -> userRepository.findAllUsernames();
+            case EMAIL -> userRepository.findAllEmails();
+            case CATEGORY_NAME -> categoryRepository.findAllNames();
+        };
+    }
+    
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
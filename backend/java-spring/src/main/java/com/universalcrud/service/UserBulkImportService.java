@@ -0,0 +1,277 @@
+package com.universalcrud.service;
+
+import com.universalcrud.dto.BulkImportResult;
+import com.universalcrud.entity.User;
+import com.universalcrud.repository.UserRepository;
+import com.universalcrud.service.UniqueKeyFilters.Key;
+import com.universalcrud.util.IdBlockAllocator;
+import com.universalcrud.util.UniqueConstraints;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Bulk account provisioning. Uniqueness is settled for the whole request with a handful of IN queries,
+// BCrypt (nearly all of the cost) runs on a fork/join pool sized to the machine, and rows go in as JDBC
+// batches with ids reserved up front. Hashing the next chunk overlaps inserting the current one. Every
+// input row gets its own result, and one bad row never fails the others.
+@Service
+public class UserBulkImportService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(UserBulkImportService.class);
+    
+    private static final int LOOKUP_CHUNK = 1000;
+    private static final String INSERT_SQL = "INSERT INTO users (id, username, email, password, first_name, last_name, " +
+            "role, created_at, updated_at, enabled) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private IdBlockAllocator idBlockAllocator;
+    
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    
+    @Autowired
+    private UniqueKeyFilters uniqueKeyFilters;
+    
+    @Autowired
+    private Validator validator;
+    
+    @Value("${app.users.bulk.max-rows:50000}")
+    private int maxRows;
+    
+    @Value("${app.users.bulk.batch-size:1000}")
+    private int batchSize;
+    
+    @Value("${app.users.bulk.hash-threads:0}")
+    private int hashThreads;
+    
+    private ForkJoinPool hashPool;
+    private TransactionTemplate transactionTemplate;
+    
+    private static final class Row {
+        final int index;
+        final User user;
+        String passwordHash;
+        Long id;
+        String error;
+        
+        Row(int index, User user) {
+            this.index = index;
+            this.user = user;
+        }
+    }
+    
+    @PostConstruct
+    public void init() {
+        int parallelism = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+        hashPool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("password-hash-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        hashPool.shutdownNow();
+    }
+    
+    public BulkImportResult importUsers(List<User> users) {
+        if (users == null || users.isEmpty()) {
+            throw new IllegalArgumentException("No users to import");
+        }
+        if (users.size() > maxRows) {
+            throw new IllegalArgumentException("At most " + maxRows + " users can be imported per request");
+        }
+        
+        long start = System.nanoTime();
+        List<Row> rows = new ArrayList<>(users.size());
+        for (int i = 0; i < users.size(); i++) {
+            rows.add(new Row(i, users.get(i)));
+        }
+        validate(rows);
+        rejectDuplicatesInRequest(rows);
+        rejectExisting(rows, Key.USERNAME, User::getUsername, "Username already exists", userRepository::findExistingUsernames);
+        rejectExisting(rows, Key.EMAIL, User::getEmail, "Email already exists", userRepository::findExistingEmails);
+        
+        List<Row> accepted = rows.stream().filter(row -> row.error == null).toList();
+        if (!accepted.isEmpty()) {
+            long firstId = idBlockAllocator.reserve("users", accepted.size());
+            for (int i = 0; i < accepted.size(); i++) {
+                accepted.get(i).id = firstId + i;
+            }
+            hashAndInsert(accepted);
+        }
+        
+        List<BulkImportResult.Row> results = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            String username = row.user != null ? row.user.getUsername() : null;
+            results.add(row.error == null
+                    ? new BulkImportResult.Row(row.index, username, "created", row.id, null)
+                    : new BulkImportResult.Row(row.index, username, "failed", null, row.error));
+        }
+        BulkImportResult result = new BulkImportResult(results, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        logger.info("Bulk user import: {} created, {} failed in {} ms on {} hash threads",
+                result.getCreated(), result.getFailed(), result.getElapsedMs(), hashPool.getParallelism());
+        return result;
+    }
+    
+    private void validate(List<Row> rows) {
+        for (Row row : rows) {
+            if (row.user == null) {
+                row.error = "Empty row";
+                continue;
+            }
+            Set<ConstraintViolation<User>> violations = validator.validate(row.user);
+            if (!violations.isEmpty()) {
+                row.error = violations.stream().map(ConstraintViolation::getMessage).sorted()
+                        .collect(Collectors.joining("; "));
+            }
+        }
+    }
+    
+    private static void rejectDuplicatesInRequest(List<Row> rows) {
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (Row row : rows) {
+            if (row.error != null) {
+                continue;
+            }
+            if (!usernames.add(normalize(row.user.getUsername()))) {
+                row.error = "Duplicate username in request";
+            } else if (!emails.add(normalize(row.user.getEmail()))) {
+                row.error = "Duplicate email in request";
+            }
+        }
+    }
+    
+    // Only values the Bloom filter can't rule out are looked up, a chunk of them per query
+    private void rejectExisting(List<Row> rows, Key key, Function<User, String> value, String message,
+                                Function<List<String>, List<String>> findExisting) {
+        Map<String, List<Row>> candidates = new HashMap<>();
+        for (Row row : rows) {
+            if (row.error != null) {
+                continue;
+            }
+            String candidate = value.apply(row.user);
+            if (uniqueKeyFilters.mightContain(key, candidate)) {
+                candidates.computeIfAbsent(normalize(candidate), k -> new ArrayList<>()).add(row);
+            }
+        }
+        
+        List<String> lookups = candidates.values().stream().map(list -> value.apply(list.get(0).user)).toList();
+        for (int i = 0; i < lookups.size(); i += LOOKUP_CHUNK) {
+            for (String existing : findExisting.apply(lookups.subList(i, Math.min(lookups.size(), i + LOOKUP_CHUNK)))) {
+                for (Row row : candidates.getOrDefault(normalize(existing), List.of())) {
+                    row.error = message;
+                }
+            }
+        }
+    }
+    
+    private void hashAndInsert(List<Row> rows) {
+        List<List<Row>> chunks = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i += batchSize) {
+            chunks.add(rows.subList(i, Math.min(rows.size(), i + batchSize)));
+        }
+        
+        CompletableFuture<Void> hashing = hash(chunks.get(0));
+        for (int i = 0; i < chunks.size(); i++) {
+            hashing.join();
+            if (i + 1 < chunks.size()) {
+                hashing = hash(chunks.get(i + 1));
+            }
+            insert(chunks.get(i));
+        }
+    }
+    
+    // A parallel stream started from inside the pool splits across that pool, not the common one
+    private CompletableFuture<Void> hash(List<Row> chunk) {
+        return CompletableFuture.runAsync(() -> chunk.parallelStream().forEach(row -> {
+            try {
+                row.passwordHash = passwordEncoder.encode(row.user.getPassword());
+            } catch (RuntimeException e) {
+                row.error = "Failed to hash password";
+            }
+        }), hashPool);
+    }
+    
+    private void insert(List<Row> chunk) {
+        List<Row> ready = chunk.stream().filter(row -> row.error == null).toList();
+        if (ready.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT_SQL, ready.stream().map(row -> parameters(row, now)).toList()));
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent create claimed one of the keys after the check; retry row by row to find it
+            for (Row row : ready) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(INSERT_SQL, parameters(row, now)));
+                } catch (DataIntegrityViolationException rowFailure) {
+                    String constraint = UniqueConstraints.violated(rowFailure);
+                    row.error = UniqueConstraints.USER_USERNAME.equals(constraint) ? "Username already exists"
+                            : UniqueConstraints.USER_EMAIL.equals(constraint) ? "Email already exists"
+                            : "Failed to insert user";
+                }
+            }
+        }
+        for (Row row : ready) {
+            if (row.error == null) {
+                uniqueKeyFilters.add(Key.USERNAME, row.user.getUsername());
+                uniqueKeyFilters.add(Key.EMAIL, row.user.getEmail());
+            }
+        }
+    }
+    
+    private static Object[] parameters(Row row, Timestamp now) {
+        User user = row.user;
+        User.Role role = user.getRole() != null ? user.getRole() : User.Role.USER;
+        return new Object[] {row.id, user.getUsername(), user.getEmail(), row.passwordHash, user.getFirstName(),
+                user.getLastName(), role.name(), now, now, user.isEnabled()};
+    }
+    
+    // Same folding as the Bloom filters: MySQL's default collation compares these case-insensitively
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,34 +1,64 @@
 package com.universalcrud.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.universalcrud.entity.User;
 import com.universalcrud.repository.UserRepository;
+import com.universalcrud.service.UniqueKeyFilters.Key;
+import com.universalcrud.util.MergePatch;
+import com.universalcrud.util.UniqueConstraints;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
+@Transactional(readOnly = true)
 public class UserService implements UserDetailsService {
     
+    // Messages of the uniqueness failures; AuthController maps them to the registration wording clients match on
+    public static final String USERNAME_EXISTS = "Username already exists";
+    public static final String EMAIL_EXISTS = "Email already exists";
+    
+    // role and enabled are further restricted to admins by the controller
+    private static final Set<String> PATCHABLE_FIELDS = Set.of(
+            "username", "email", "firstName", "lastName", "role", "enabled", "password");
+    
     @Autowired
     private UserRepository userRepository;
     
     @Autowired
     private PasswordEncoder passwordEncoder;
     
+    @Autowired
+    private UniqueKeyFilters uniqueKeyFilters;
+    
+    @Autowired
+    private Validator validator;
+    
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         return userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
     }
     
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    public Page<User> getAllUsers(Pageable pageable) {
+        return userRepository.findAll(pageable);
     }
     
     public Optional<User> getUserById(Long id) {
@@ -43,34 +73,36 @@ public class UserService implements UserDetailsService {
         return userRepository.findByEmail(email);
     }
     
+    @Transactional
     public User createUser(User user) {
-        if (userRepository.existsByUsername(user.getUsername())) {
-            throw new RuntimeException("Username already exists");
+        if (existsByUsername(user.getUsername())) {
+            throw new RuntimeException(USERNAME_EXISTS);
         }
-        if (userRepository.existsByEmail(user.getEmail())) {
-            throw new RuntimeException("Email already exists");
+        if (existsByEmail(user.getEmail())) {
+            throw new RuntimeException(EMAIL_EXISTS);
         }
         
         // Encode password
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         
-        return userRepository.save(user);
+        return saveWithUniqueKeys(user);
     }
     
+    @Transactional
     public User updateUser(Long id, User userDetails) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
         
         // Check if username is being changed and if it's already taken
         if (!user.getUsername().equals(userDetails.getUsername()) && 
-            userRepository.existsByUsername(userDetails.getUsername())) {
-            throw new RuntimeException("Username already exists");
+            existsByUsername(userDetails.getUsername())) {
+            throw new RuntimeException(USERNAME_EXISTS);
         }
         
         // Check if email is being changed and if it's already taken
         if (!user.getEmail().equals(userDetails.getEmail()) && 
-            userRepository.existsByEmail(userDetails.getEmail())) {
-            throw new RuntimeException("Email already exists");
+            existsByEmail(userDetails.getEmail())) {
+            throw new RuntimeException(EMAIL_EXISTS);
         }
         
         user.setUsername(userDetails.getUsername());
@@ -85,43 +117,144 @@ public class UserService implements UserDetailsService {
             user.setPassword(passwordEncoder.encode(userDetails.getPassword()));
         }
         
-        return userRepository.save(user);
+        return saveWithUniqueKeys(user);
+    }
+    
+    @Transactional
+    public User patchUser(Long id, JsonNode patch) {
+        MergePatch changes = MergePatch.of(patch, PATCHABLE_FIELDS);
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+        applyPatch(user, changes);
+        return saveWithUniqueKeys(user);
+    }
+    
+    // All or nothing, with the dirty rows flushed as JDBC batches like the product batch patch
+    @Transactional
+    public List<Long> patchUsers(List<JsonNode> items) {
+        Map<Long, MergePatch> patches = MergePatch.batch(items, PATCHABLE_FIELDS);
+        Map<Long, User> users = userRepository.findAllById(patches.keySet()).stream()
+                .collect(Collectors.toMap(User::getId, user -> user));
+        List<Long> missing = patches.keySet().stream().filter(id -> !users.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("Users not found: " + missing);
+        }
+        
+        patches.forEach((id, patch) -> {
+            try {
+                applyPatch(users.get(id), patch);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("User " + id + ": " + e.getMessage());
+            }
+        });
+        
+        try {
+            userRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            String constraint = UniqueConstraints.violated(e);
+            if (UniqueConstraints.USER_USERNAME.equals(constraint) || UniqueConstraints.USER_EMAIL.equals(constraint)) {
+                throw new IllegalArgumentException("The batch would give two users the same username or email");
+            }
+            throw e;
+        }
+        for (User user : users.values()) {
+            uniqueKeyFilters.add(Key.USERNAME, user.getUsername());
+            uniqueKeyFilters.add(Key.EMAIL, user.getEmail());
+        }
+        return new ArrayList<>(patches.keySet());
+    }
+    
+    // The password arrives in clear text and is validated as such before it is hashed
+    private void applyPatch(User user, MergePatch patch) {
+        if (patch.has("username")) {
+            String username = patch.get("username", String.class);
+            if (username != null && !username.equals(user.getUsername()) && existsByUsername(username)) {
+                throw new RuntimeException(USERNAME_EXISTS);
+            }
+            user.setUsername(username);
+        }
+        if (patch.has("email")) {
+            String email = patch.get("email", String.class);
+            if (email != null && !email.equals(user.getEmail()) && existsByEmail(email)) {
+                throw new RuntimeException(EMAIL_EXISTS);
+            }
+            user.setEmail(email);
+        }
+        patch.apply("firstName", String.class, user::setFirstName);
+        patch.apply("lastName", String.class, user::setLastName);
+        patch.applyRequired("role", User.Role.class, user::setRole);
+        patch.applyRequired("enabled", Boolean.class, user::setEnabled);
+        patch.applyRequired("password", String.class, user::setPassword);
+        
+        Set<ConstraintViolation<User>> violations = validator.validate(user);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream().map(ConstraintViolation::getMessage).sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        if (patch.has("password")) {
+            user.setPassword(passwordEncoder.encode(user.getPassword()));
+        }
+    }
+    
+    // The unique constraints settle races the existence checks can't see; flushed so they fail in here
+    private User saveWithUniqueKeys(User user) {
+        User savedUser;
+        try {
+            savedUser = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            String constraint = UniqueConstraints.violated(e);
+            if (UniqueConstraints.USER_USERNAME.equals(constraint)) {
+                throw new RuntimeException(USERNAME_EXISTS);
+            }
+            if (UniqueConstraints.USER_EMAIL.equals(constraint)) {
+                throw new RuntimeException(EMAIL_EXISTS);
+            }
+            throw e;
+        }
+        uniqueKeyFilters.add(Key.USERNAME, savedUser.getUsername());
+        uniqueKeyFilters.add(Key.EMAIL, savedUser.getEmail());
+        return savedUser;
     }
     
+    @Transactional
     public void deleteUser(Long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
         userRepository.delete(user);
     }
     
-    public List<User> getUsersByRole(User.Role role) {
-        return userRepository.findByRole(role);
+    public Page<User> getUsersByRole(User.Role role, Pageable pageable) {
+        return userRepository.findByRole(role, pageable);
     }
     
-    public List<User> searchUsersByName(String name) {
-        return userRepository.findByNameContaining(name);
+    public Page<User> searchUsersByName(String name, Pageable pageable) {
+        return userRepository.findByNameContaining(name, pageable);
     }
     
-    public List<User> getEnabledUsers() {
-        return userRepository.findByEnabled(true);
+    public Page<User> getEnabledUsers(Pageable pageable) {
+        return userRepository.findByEnabled(true, pageable);
     }
     
-    public List<User> getDisabledUsers() {
-        return userRepository.findByEnabled(false);
+    public Page<User> getDisabledUsers(Pageable pageable) {
+        return userRepository.findByEnabled(false, pageable);
     }
     
     public long countUsersByRole(User.Role role) {
         return userRepository.countByRole(role);
     }
     
+    // Usually answered by the Bloom filter without touching the database
+    @Transactional(propagation = Propagation.SUPPORTS)
     public boolean existsByUsername(String username) {
-        return userRepository.existsByUsername(username);
+        return uniqueKeyFilters.exists(Key.USERNAME, username, userRepository::existsByUsername);
     }
     
+    @Transactional(propagation = Propagation.SUPPORTS)
     public boolean existsByEmail(String email) {
-        return userRepository.existsByEmail(email);
+        return uniqueKeyFilters.exists(Key.EMAIL, email, userRepository::existsByEmail);
     }
     
+    @Transactional
     public User changePassword(Long id, String oldPassword, String newPassword) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
@@ -134,6 +267,7 @@ public class UserService implements UserDetailsService {
         return userRepository.save(user);
     }
     
+    @Transactional
     public User toggleUserStatus(Long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
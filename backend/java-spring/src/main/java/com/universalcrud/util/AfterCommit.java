@@ -0,0 +1,25 @@
+package com.universalcrud.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Defers in-memory side effects of a write (index updates) until its transaction has committed, so a
+// rollback can't leave them describing rows that never made it. Runs immediately outside a transaction.
+public final class AfterCommit {
+    
+    private AfterCommit() {
+    }
+    
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
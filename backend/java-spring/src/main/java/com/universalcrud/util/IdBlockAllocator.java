@@ -0,0 +1,121 @@
+package com.universalcrud.util;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Hands out ids from blocks reserved in the id_blocks table. A block is claimed with a single
+// UPDATE in its own transaction; ids inside a block are handed out lock-free from an AtomicLong.
+@Component
+public class IdBlockAllocator {
+    
+    private static final Logger logger = LoggerFactory.getLogger(IdBlockAllocator.class);
+    
+    // Counters named after an entity table start above that table's current max(id)
+    private static final Set<String> ENTITY_TABLES = Set.of("products", "categories", "users");
+    
+    private static volatile IdBlockAllocator instance;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${app.id-blocks.size:100}")
+    private int blockSize;
+    
+    private TransactionTemplate requiresNew;
+    
+    private final ConcurrentHashMap<String, AtomicReference<Block>> blocks = new ConcurrentHashMap<>();
+    
+    private static final class Block {
+        final AtomicLong next;
+        final long end;
+        
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+    
+    @PostConstruct
+    public void init() {
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        instance = this;
+    }
+    
+    // Used by BlockIdGenerator, which Hibernate instantiates outside the Spring context
+    public static IdBlockAllocator getInstance() {
+        if (instance == null) {
+            throw new IllegalStateException("IdBlockAllocator has not been initialised");
+        }
+        return instance;
+    }
+    
+    public long next(String name) {
+        AtomicReference<Block> current = blocks.computeIfAbsent(name, key -> new AtomicReference<>(new Block(0, 0)));
+        while (true) {
+            Block block = current.get();
+            long value = block.next.getAndIncrement();
+            if (value < block.end) {
+                return value;
+            }
+            synchronized (current) {
+                if (current.get() == block) {
+                    long start = reserve(name, blockSize);
+                    current.set(new Block(start, start + blockSize));
+                }
+            }
+        }
+    }
+    
+    // Reserves a contiguous range of count values and returns the first one
+    public long reserve(String name, int count) {
+        Long start = requiresNew.execute(status -> tryReserve(name, count));
+        if (start == null) {
+            try {
+                requiresNew.executeWithoutResult(status -> createCounter(name));
+            } catch (DataIntegrityViolationException e) {
+                logger.debug("Id block counter {} was created concurrently", name);
+            }
+            start = requiresNew.execute(status -> tryReserve(name, count));
+        }
+        if (start == null) {
+            throw new IllegalStateException("Unable to reserve id block for " + name);
+        }
+        return start;
+    }
+    
+    private Long tryReserve(String name, int count) {
+        int updated = jdbcTemplate.update("UPDATE id_blocks SET next_value = next_value + ? WHERE name = ?", count, name);
+        if (updated == 0) {
+            return null;
+        }
+        List<Long> end = jdbcTemplate.queryForList("SELECT next_value FROM id_blocks WHERE name = ?", Long.class, name);
+        return end.get(0) - count;
+    }
+    
+    private void createCounter(String name) {
+        if (ENTITY_TABLES.contains(name)) {
+            jdbcTemplate.update("INSERT INTO id_blocks (name, next_value) SELECT ?, COALESCE(MAX(id), 0) + 1 FROM " + name, name);
+        } else {
+            jdbcTemplate.update("INSERT INTO id_blocks (name, next_value) VALUES (?, 1)", name);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.universalcrud.util;
 
+import com.universalcrud.monitoring.JfrEvents;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.slf4j.Logger;
@@ -56,6 +57,20 @@ public class JwtUtils {
     }
     
     public boolean validateJwtToken(String authToken) {
+        JfrEvents.JwtValidationEvent event = new JfrEvents.JwtValidationEvent();
+        if (!event.isEnabled()) {
+            return parseJwtToken(authToken);
+        }
+        event.begin();
+        try {
+            event.valid = parseJwtToken(authToken);
+            return event.valid;
+        } finally {
+            event.commit();
+        }
+    }
+    
+    private boolean parseJwtToken(String authToken) {
         try {
             Jwts.parserBuilder()
                     .setSigningKey(getSigningKey())
@@ -0,0 +1,116 @@
+package com.universalcrud.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+// RFC 7396 JSON Merge Patch for our flat resources: a member sets its field, null clears it and an absent
+// member leaves it alone. Only the fields a resource whitelists can be patched; anything else is rejected
+// up front so a typo can't silently do nothing. Setters only run for members present in the patch, so
+// with @DynamicUpdate the UPDATE carries just those columns.
+public final class MergePatch {
+    
+    public static final int MAX_BATCH_SIZE = 5000;
+    
+    // Plain scalars only, so the application's mapper configuration doesn't matter here
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
+    private final ObjectNode patch;
+    
+    private MergePatch(ObjectNode patch) {
+        this.patch = patch;
+    }
+    
+    public static MergePatch of(JsonNode patch, Set<String> fields) {
+        if (patch == null || !patch.isObject()) {
+            throw new IllegalArgumentException("A merge patch must be a JSON object");
+        }
+        List<String> unknown = new ArrayList<>();
+        Iterator<String> names = patch.fieldNames();
+        while (names.hasNext()) {
+            String name = names.next();
+            if (!fields.contains(name)) {
+                unknown.add(name);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Cannot patch " + String.join(", ", unknown) + "; patchable fields are " + fields);
+        }
+        return new MergePatch((ObjectNode) patch);
+    }
+    
+    // Batch PATCH bodies are arrays of {"id": ..., <fields>}; returns each id's patch in request order
+    public static Map<Long, MergePatch> batch(List<JsonNode> items, Set<String> fields) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("Batch is empty");
+        }
+        if (items.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " items can be patched per request");
+        }
+        Map<Long, MergePatch> patches = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            JsonNode item = items.get(i);
+            JsonNode id = item != null && item.isObject() ? item.get("id") : null;
+            if (id == null || !id.canConvertToLong()) {
+                throw new IllegalArgumentException("Item " + i + " needs a numeric id");
+            }
+            ObjectNode changes = ((ObjectNode) item).deepCopy();
+            changes.remove("id");
+            MergePatch patch;
+            try {
+                patch = of(changes, fields);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Item " + i + ": " + e.getMessage());
+            }
+            if (patches.put(id.asLong(), patch) != null) {
+                throw new IllegalArgumentException("Id " + id.asLong() + " appears more than once in the batch");
+            }
+        }
+        return patches;
+    }
+    
+    public boolean has(String field) {
+        return patch.has(field);
+    }
+    
+    public boolean isEmpty() {
+        return patch.isEmpty();
+    }
+    
+    public <T> T get(String field, Class<T> type) {
+        JsonNode value = patch.get(field);
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        try {
+            return MAPPER.treeToValue(value, type);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid value for '" + field + "'");
+        }
+    }
+    
+    public <T> void apply(String field, Class<T> type, Consumer<T> setter) {
+        if (patch.has(field)) {
+            setter.accept(get(field, type));
+        }
+    }
+    
+    // For columns that can't be cleared: null is rejected instead of being written
+    public <T> void applyRequired(String field, Class<T> type, Consumer<T> setter) {
+        if (patch.has(field)) {
+            T value = get(field, type);
+            if (value == null) {
+                throw new IllegalArgumentException("'" + field + "' cannot be null");
+            }
+            setter.accept(value);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.universalcrud.util;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.Map;
+
+// Every list endpoint pages through here: client-supplied sizes are clamped to MAX_SIZE so no single
+// request can pull a whole table into memory, and all of them answer with the same pagination block.
+public final class PageRequests {
+    
+    public static final int MAX_SIZE = 100;
+    
+    private PageRequests() {
+    }
+    
+    public static Pageable of(int page, int size) {
+        return of(page, size, Sort.unsorted());
+    }
+    
+    public static Pageable of(int page, int size, Sort sort) {
+        return PageRequest.of(Math.max(0, page), Math.max(1, Math.min(size, MAX_SIZE)), sort);
+    }
+    
+    public static Map<String, Object> pagination(Page<?> page) {
+        return Map.of(
+            "page", page.getNumber(),
+            "size", page.getSize(),
+            "totalElements", page.getTotalElements(),
+            "totalPages", page.getTotalPages(),
+            "hasNext", page.hasNext(),
+            "hasPrevious", page.hasPrevious()
+        );
+    }
+}
@@ -0,0 +1,41 @@
+package com.universalcrud.util;
+
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.List;
+import java.util.Locale;
+
+// Names of the unique constraints declared on the entities, and a lookup from a failed insert or update
+// back to the constraint it violated. The constraints stay the final arbiter of uniqueness.
+public final class UniqueConstraints {
+    
+    public static final String PRODUCT_SKU = "uk_products_sku";
+    public static final String USER_USERNAME = "uk_users_username";
+    public static final String USER_EMAIL = "uk_users_email";
+    public static final String CATEGORY_NAME = "uk_categories_name";
+    
+    private static final List<String> ALL = List.of(PRODUCT_SKU, USER_USERNAME, USER_EMAIL, CATEGORY_NAME);
+    
+    private UniqueConstraints() {
+    }
+    
+    // Matches on the driver message only: the session can't be queried again after a failed flush
+    public static String violated(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            String message = cause.getMessage();
+            if (message == null) {
+                continue;
+            }
+            String lower = message.toLowerCase(Locale.ROOT);
+            for (String constraint : ALL) {
+                if (lower.contains(constraint)) {
+                    return constraint;
+                }
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return null;
+    }
+}
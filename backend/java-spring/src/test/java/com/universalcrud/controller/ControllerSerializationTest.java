@@ -0,0 +1,113 @@
+package com.universalcrud.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+// Every response is serialised after its transaction has closed (open-in-view is off), so a lazy
+// association a controller hands to Jackson fails here with a LazyInitializationException
+@SpringBootTest(properties = {
+        "spring.jpa.open-in-view=false",
+        "app.seed.users=20",
+        "app.seed.categories=10",
+        "app.seed.products=200",
+        "app.snapshot.enabled=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles({"h2", "seed"})
+class ControllerSerializationTest {
+    
+    private static final String RANGE = "from=2000-01-01T00:00:00&to=2100-01-01T00:00:00";
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private String token;
+    
+    @BeforeEach
+    void logIn() throws Exception {
+        JsonNode login = call(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"user0000001\",\"password\":\"password123\"}"));
+        token = "Bearer " + login.path("data").path("accessToken").asText();
+    }
+    
+    @Test
+    void readEndpointsSerialise() throws Exception {
+        List<String> paths = List.of(
+                "/api/auth/me",
+                "/api/products",
+                "/api/products/1",
+                "/api/products/search?q=wireless&facets=true",
+                "/api/products/query?sort=price,desc&size=5",
+                "/api/products/category/1",
+                "/api/products/price-range?minPrice=0&maxPrice=1000",
+                "/api/products/low-stock?threshold=50",
+                "/api/products/out-of-stock",
+                "/api/products/stats",
+                "/api/categories",
+                "/api/categories/1",
+                "/api/categories/with-products",
+                "/api/categories/1/with-products",
+                "/api/categories/search?name=a",
+                "/api/categories/1/product-count",
+                "/api/categories/1/can-delete",
+                "/api/users",
+                "/api/users/1",
+                "/api/users/profile",
+                "/api/users/search?name=user",
+                "/api/reports");
+        for (String path : paths) {
+            call(get(path).header("Authorization", token));
+        }
+    }
+    
+    @Test
+    void writeEndpointsSerialise() throws Exception {
+        JsonNode created = call(post("/api/products").header("Authorization", token).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Serialisation probe\",\"price\":12.5,\"quantity\":3,\"category\":{\"id\":1}}"));
+        long id = created.path("data").path("id").asLong();
+        assertEquals("Serialisation probe", created.path("data").path("name").asText());
+        
+        call(put("/api/products/" + id).header("Authorization", token).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Serialisation probe 2\",\"price\":13,\"quantity\":4,\"isActive\":true,\"category\":{\"id\":2}}"));
+        call(patch("/api/products/" + id).header("Authorization", token).contentType("application/merge-patch+json")
+                .content("{\"description\":\"patched\"}"));
+        call(post("/api/products/" + id + "/adjust-stock").header("Authorization", token)
+                .contentType(MediaType.APPLICATION_JSON).content("{\"adjustment\":2}"));
+        JsonNode history = call(get("/api/products/" + id + "/stock-history?" + RANGE).header("Authorization", token));
+        assertTrue(history.path("data").size() >= 2);
+        call(get("/api/products/" + id + "/stock-history/at?time=2100-01-01T00:00:00").header("Authorization", token));
+        call(get("/api/products/" + id + "/stock-history/aggregate?from=2026-01-01T00:00:00&to=2027-01-01T00:00:00&bucket=day")
+                .header("Authorization", token));
+    }
+    
+    private JsonNode call(RequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request).andReturn();
+        String body = result.getResponse().getContentAsString();
+        assertEquals(2, result.getResponse().getStatus() / 100, result.getRequest().getRequestURI() + " " + body);
+        JsonNode json = objectMapper.readTree(body);
+        assertTrue(json.path("success").asBoolean(true), body);
+        return json;
+    }
+}
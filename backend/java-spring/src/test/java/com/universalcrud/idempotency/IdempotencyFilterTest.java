@@ -0,0 +1,151 @@
+package com.universalcrud.idempotency;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+// Same configuration as ControllerSerializationTest, so both share one application context
+@SpringBootTest(properties = {
+        "spring.jpa.open-in-view=false",
+        "app.seed.users=20",
+        "app.seed.categories=10",
+        "app.seed.products=200",
+        "app.snapshot.enabled=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles({"h2", "seed"})
+class IdempotencyFilterTest {
+    
+    private static final long PRODUCT = 3;
+    private static final String ADJUST = "/api/products/" + PRODUCT + "/adjust-stock";
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private IdempotencyFilter filter;
+    
+    @Autowired
+    private IdempotencyStore store;
+    
+    private String token;
+    
+    @BeforeEach
+    void logIn() throws Exception {
+        String body = mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"user0000001\",\"password\":\"password123\"}"))
+                .andReturn().getResponse().getContentAsString();
+        token = "Bearer " + objectMapper.readTree(body).path("data").path("accessToken").asText();
+    }
+    
+    @Test
+    void retryIsReplayedWithoutASecondWrite() throws Exception {
+        String key = UUID.randomUUID().toString();
+        int before = quantity();
+        MockHttpServletResponse first = adjust(key, 2);
+        MockHttpServletResponse retry = adjust(key, 2);
+        
+        assertEquals(200, first.getStatus());
+        assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(200, retry.getStatus());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+        assertEquals(before + 2, quantity());
+    }
+    
+    @Test
+    void reusingAKeyWithAnotherBodyIsRejected() throws Exception {
+        String key = UUID.randomUUID().toString();
+        int before = quantity();
+        assertEquals(200, adjust(key, 1).getStatus());
+        assertEquals(422, adjust(key, 5).getStatus());
+        assertEquals(before + 1, quantity());
+    }
+    
+    @Test
+    void retryWhileTheFirstIsRunningGetsConflict() throws Exception {
+        String key = UUID.randomUUID().toString();
+        // Another node holds the key and never finishes within the wait
+        IdempotencyStore.Claim held = store.begin("user0000001", ADJUST, key, sha256(adjustment(1)));
+        assertTrue(held.owner());
+        long waitTimeoutMs = (long) ReflectionTestUtils.getField(filter, "waitTimeoutMs");
+        ReflectionTestUtils.setField(filter, "waitTimeoutMs", 200L);
+        try {
+            int before = quantity();
+            MockHttpServletResponse retry = adjust(key, 1);
+            assertEquals(409, retry.getStatus());
+            assertEquals("1", retry.getHeader("Retry-After"));
+            assertEquals(before, quantity());
+        } finally {
+            ReflectionTestUtils.setField(filter, "waitTimeoutMs", waitTimeoutMs);
+            store.release(held.record().getId());
+        }
+    }
+    
+    @Test
+    void responsesTooLargeToKeepAreNotRunTwice() throws Exception {
+        String key = UUID.randomUUID().toString();
+        int maxBodyBytes = (int) ReflectionTestUtils.getField(filter, "maxBodyBytes");
+        ReflectionTestUtils.setField(filter, "maxBodyBytes", 10);
+        try {
+            int before = quantity();
+            assertEquals(200, adjust(key, 3).getStatus());
+            assertEquals(409, adjust(key, 3).getStatus());
+            assertEquals(before + 3, quantity());
+        } finally {
+            ReflectionTestUtils.setField(filter, "maxBodyBytes", maxBodyBytes);
+        }
+    }
+    
+    @Test
+    void oversizedBodiesAreRefusedBeforeReading() throws Exception {
+        String padding = "x".repeat(70 * 1024);
+        MockHttpServletResponse response = mockMvc.perform(post("/api/products").header("Authorization", token)
+                .header(IdempotencyFilter.HEADER, UUID.randomUUID().toString()).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Too large\",\"price\":1,\"quantity\":1,\"description\":\"" + padding + "\"}"))
+                .andReturn().getResponse();
+        assertEquals(413, response.getStatus());
+    }
+    
+    private MockHttpServletResponse adjust(String key, int adjustment) throws Exception {
+        return mockMvc.perform(post(ADJUST).header("Authorization", token).header(IdempotencyFilter.HEADER, key)
+                .contentType(MediaType.APPLICATION_JSON).content(adjustment(adjustment))).andReturn().getResponse();
+    }
+    
+    private int quantity() throws Exception {
+        String body = mockMvc.perform(get("/api/products/" + PRODUCT).header("Authorization", token))
+                .andReturn().getResponse().getContentAsString();
+        JsonNode product = objectMapper.readTree(body).path("data");
+        return product.path("quantity").asInt();
+    }
+    
+    private static String adjustment(int adjustment) {
+        return "{\"adjustment\":" + adjustment + "}";
+    }
+    
+    private static byte[] sha256(String body) throws Exception {
+        return MessageDigest.getInstance("SHA-256").digest(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,62 @@
+package com.universalcrud.limiting;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveLimiterTest {
+    
+    private static final long MILLIS = 1_000_000L;
+    
+    @Test
+    void rejectsBeyondTheLimit() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(2, 1, 10, 1.5, 0.2, Long.MAX_VALUE);
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        limiter.release(MILLIS, true, false);
+        assertTrue(limiter.tryAcquire());
+        assertEquals(2, limiter.getInFlight());
+    }
+    
+    @Test
+    void backsOffOnOverloadDownToTheMinimum() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(10, 8, 20, 1.5, 0.2, 0);
+        limiter.tryAcquire();
+        limiter.release(MILLIS, true, true);
+        assertEquals(9, limiter.getLimit());
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire();
+            limiter.release(MILLIS, true, true);
+        }
+        assertEquals(8, limiter.getLimit());
+    }
+    
+    @Test
+    void growsWhileSaturatedWithSteadyLatency() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(4, 1, 50, 1.5, 0.5, 0);
+        for (int round = 0; round < 20; round++) {
+            int acquired = 0;
+            while (limiter.tryAcquire()) {
+                acquired++;
+            }
+            // Windows close once ten samples have arrived, so a window spans a few rounds
+            for (int i = 0; i < acquired; i++) {
+                limiter.release(10 * MILLIS, true, false);
+            }
+        }
+        assertTrue(limiter.getLimit() > 4, "limit " + limiter.getLimit());
+    }
+    
+    @Test
+    void holdsWhenTrafficNeverApproachesTheLimit() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(20, 1, 50, 1.5, 0.5, 0);
+        for (int i = 0; i < 200; i++) {
+            limiter.tryAcquire();
+            limiter.release(10 * MILLIS, true, false);
+        }
+        assertEquals(20, limiter.getLimit());
+    }
+}
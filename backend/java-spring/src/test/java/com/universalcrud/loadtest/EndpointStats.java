@@ -0,0 +1,58 @@
+package com.universalcrud.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency and status counts for one endpoint during one measured run
+final class EndpointStats {
+    
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final ConcurrentHashMap<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    
+    // status 0 means the request failed without a response (timeout, connection reset)
+    void record(int status, long micros) {
+        latency.record(micros);
+        statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+        if (status < 200 || status >= 300) {
+            errors.increment();
+        }
+    }
+    
+    long count() {
+        return latency.count();
+    }
+    
+    long errors() {
+        return errors.sum();
+    }
+    
+    Map<String, Object> summary(double seconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", latency.count());
+        summary.put("errors", errors.sum());
+        summary.put("throughput", round(seconds > 0 ? latency.count() / seconds : 0));
+        summary.put("meanMs", round(latency.mean() / 1000.0));
+        summary.put("p50Ms", millis(latency.percentile(50)));
+        summary.put("p90Ms", millis(latency.percentile(90)));
+        summary.put("p95Ms", millis(latency.percentile(95)));
+        summary.put("p99Ms", millis(latency.percentile(99)));
+        summary.put("p999Ms", millis(latency.percentile(99.9)));
+        summary.put("maxMs", millis(latency.max()));
+        Map<String, Long> statusCounts = new TreeMap<>();
+        statuses.forEach((status, count) -> statusCounts.put(String.valueOf(status), count.sum()));
+        summary.put("statuses", statusCounts);
+        return summary;
+    }
+    
+    private static double millis(long micros) {
+        return round(micros / 1000.0);
+    }
+    
+    static double round(double value) {
+        return Math.round(value * 1000.0) / 1000.0;
+    }
+}
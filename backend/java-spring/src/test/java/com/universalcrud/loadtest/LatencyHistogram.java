@@ -0,0 +1,74 @@
+package com.universalcrud.loadtest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lock-free log-linear histogram of latencies in microseconds: exact below 64 us, then 32 sub-buckets
+// per power of two (about 3% relative error), which is plenty for percentile comparisons between runs.
+final class LatencyHistogram {
+    
+    private static final int LINEAR = 64;
+    private static final int SUB_BUCKETS = 32;
+    private static final int EXPONENTS = 57;
+    
+    private final AtomicLongArray counts = new AtomicLongArray(LINEAR + EXPONENTS * SUB_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+    
+    void record(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+    
+    long count() {
+        return count.sum();
+    }
+    
+    double mean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+    
+    long max() {
+        return max.get();
+    }
+    
+    long percentile(double percentile) {
+        long n = count.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+    
+    private static int index(long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        return LINEAR + (exponent - 6) * SUB_BUCKETS + (int) ((value >>> (exponent - 5)) & (SUB_BUCKETS - 1));
+    }
+    
+    private static long upperBound(int index) {
+        if (index < LINEAR) {
+            return index;
+        }
+        int exponent = (index - LINEAR) / SUB_BUCKETS + 6;
+        long sub = (index - LINEAR) % SUB_BUCKETS;
+        long lower = (SUB_BUCKETS + sub) << (exponent - 5);
+        return lower + (1L << (exponent - 5)) - 1;
+    }
+}
@@ -0,0 +1,87 @@
+package com.universalcrud.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+// Thin JSON client for the API as the frontends see it: real HTTP, bearer tokens, response envelopes
+final class LoadTestClient {
+    
+    record Response(int status, JsonNode body) {
+        boolean ok() {
+            return status >= 200 && status < 300;
+        }
+        
+        JsonNode data() {
+            return body.path("data");
+        }
+    }
+    
+    private final String baseUrl;
+    private final ObjectMapper objectMapper;
+    private final Duration timeout;
+    private final HttpClient httpClient;
+    
+    LoadTestClient(String baseUrl, ObjectMapper objectMapper, Duration timeout) {
+        this.baseUrl = baseUrl;
+        this.objectMapper = objectMapper;
+        this.timeout = timeout;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .executor(Executors.newCachedThreadPool(r -> {
+                    Thread thread = new Thread(r, "loadtest-http");
+                    thread.setDaemon(true);
+                    return thread;
+                }))
+                .build();
+    }
+    
+    Response get(String path, String token) throws IOException, InterruptedException {
+        return send("GET", path, token, null);
+    }
+    
+    Response send(String method, String path, String token, Object body) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(timeout)
+                .header("Accept", "application/json");
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        if (body != null) {
+            request.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        } else {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+        
+        HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        JsonNode json = MissingNode.getInstance();
+        if (response.body().length > 0) {
+            try {
+                json = objectMapper.readTree(response.body());
+            } catch (IOException e) {
+                // Error pages are not always JSON; the status code is what gets recorded
+            }
+        }
+        return new Response(response.statusCode(), json);
+    }
+    
+    // Returns the JWT, or null when the account cannot log in (the seeder disables a few users)
+    String login(String username, String password) throws IOException, InterruptedException {
+        Response response = send("POST", "/auth/login", null, Map.of("username", username, "password", password));
+        if (!response.ok()) {
+            return null;
+        }
+        return response.data().path("accessToken").asText(null);
+    }
+}
@@ -0,0 +1,19 @@
+package com.universalcrud.loadtest;
+
+import com.universalcrud.UniversalCrudApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+// Boots the full backend on in-memory H2 with a seeded catalogue, replays traffic against it over HTTP
+// (LoadTestRunner) and exits with the runner's code. Lives with the tests so it stays out of the jar:
+//   mvn spring-boot:test-run -Dspring-boot.run.main-class=com.universalcrud.loadtest.LoadTestMain \
+//       -Dspring-boot.run.arguments="--app.loadtest.model=both --app.loadtest.baseline=target/loadtest/baseline.json"
+public class LoadTestMain {
+    public static void main(String[] args) {
+        SpringApplication application = new SpringApplication(UniversalCrudApplication.class);
+        // loadtest last, so its dataset sizes override the seed profile defaults
+        application.setAdditionalProfiles("h2", "seed", "loadtest");
+        ConfigurableApplicationContext context = application.run(args);
+        System.exit(SpringApplication.exit(context));
+    }
+}
@@ -0,0 +1,466 @@
+package com.universalcrud.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.universalcrud.loadtest.TrafficMix.Operation;
+import com.universalcrud.loadtest.Workload.Outcome;
+import com.universalcrud.loadtest.Workload.Session;
+import com.universalcrud.repository.CategoryRepository;
+import com.universalcrud.repository.ProductRepository;
+import com.universalcrud.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Replays the frontend traffic mix against this very process over HTTP once it is up, under a closed
+// model (fixed users, each waiting for its response) and/or an open model (Poisson arrivals at a fixed
+// rate, latency measured from the scheduled start so queueing is not hidden), then writes a JSON report
+// and compares it with a baseline. Started through LoadTestMain.
+@Component
+@Profile("loadtest")
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class LoadTestRunner implements ApplicationRunner, ExitCodeGenerator {
+    
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestRunner.class);
+    
+    // Endpoints with fewer samples than this are too noisy to flag as regressions
+    private static final long MIN_COMPARABLE_SAMPLES = 50;
+    
+    @Autowired
+    private Environment environment;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private CategoryRepository categoryRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Value("${app.loadtest.model:both}")
+    private String model;
+    
+    @Value("${app.loadtest.mix}")
+    private String mixSpec;
+    
+    @Value("${app.loadtest.warmup-seconds:10}")
+    private int warmupSeconds;
+    
+    @Value("${app.loadtest.duration-seconds:30}")
+    private int durationSeconds;
+    
+    @Value("${app.loadtest.sessions:16}")
+    private int sessionCount;
+    
+    @Value("${app.loadtest.admin-username:user0000001}")
+    private String adminUsername;
+    
+    @Value("${app.seed.password:password123}")
+    private String password;
+    
+    @Value("${app.loadtest.discovery-pages:10}")
+    private int discoveryPages;
+    
+    @Value("${app.loadtest.closed.users:32}")
+    private int closedUsers;
+    
+    @Value("${app.loadtest.closed.think-ms:0}")
+    private long thinkMs;
+    
+    @Value("${app.loadtest.open.rate:200}")
+    private double openRate;
+    
+    @Value("${app.loadtest.open.max-in-flight:256}")
+    private int maxInFlight;
+    
+    @Value("${app.loadtest.timeout-ms:10000}")
+    private long timeoutMs;
+    
+    @Value("${app.loadtest.report-dir:target/loadtest}")
+    private String reportDir;
+    
+    @Value("${app.loadtest.baseline:}")
+    private String baseline;
+    
+    @Value("${app.loadtest.regression-threshold-pct:15}")
+    private double regressionThresholdPct;
+    
+    @Value("${app.loadtest.fail-on-regression:false}")
+    private boolean failOnRegression;
+    
+    private volatile int exitCode;
+    
+    private interface Phase {
+        // Returns the number of arrivals dropped because too many requests were already in flight
+        long run(RunStats stats, long deadlineNanos) throws InterruptedException;
+    }
+    
+    private static final class RunStats {
+        final Map<Operation, EndpointStats> endpoints = new EnumMap<>(Operation.class);
+        final EndpointStats overall = new EndpointStats();
+        
+        RunStats() {
+            for (Operation operation : Operation.values()) {
+                endpoints.put(operation, new EndpointStats());
+            }
+        }
+        
+        void record(Operation operation, int status, long micros) {
+            endpoints.get(operation).record(status, micros);
+            overall.record(status, micros);
+        }
+    }
+    
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            execute();
+        } catch (Exception e) {
+            logger.error("Load test failed: {}", e.getMessage(), e);
+            exitCode = 1;
+        }
+    }
+    
+    @Override
+    public int getExitCode() {
+        return exitCode;
+    }
+    
+    private void execute() throws Exception {
+        TrafficMix mix = TrafficMix.parse(mixSpec);
+        String baseUrl = "http://localhost:" + environment.getRequiredProperty("local.server.port")
+                + environment.getProperty("server.servlet.context-path", "") + "/api";
+        LoadTestClient client = new LoadTestClient(baseUrl, objectMapper, Duration.ofMillis(timeoutMs));
+        
+        String adminToken = client.login(adminUsername, password);
+        if (adminToken == null) {
+            throw new IllegalStateException("Cannot log in as " + adminUsername + "; check app.seed.password");
+        }
+        Workload workload = new Workload(client, adminToken);
+        workload.discover(discoveryPages);
+        List<Session> sessions = loginSessions(client);
+        logger.info("Load test against {} with {} sessions, mix {}", baseUrl, sessions.size(), mix.describe());
+        
+        List<Map<String, Object>> runs = new ArrayList<>();
+        if (model.equals("closed") || model.equals("both")) {
+            Map<String, Object> config = new LinkedHashMap<>();
+            config.put("users", closedUsers);
+            config.put("thinkMs", thinkMs);
+            runs.add(measure("closed", config, (stats, deadline) -> closedLoop(workload, mix, sessions, stats, deadline)));
+        }
+        if (model.equals("open") || model.equals("both")) {
+            Map<String, Object> config = new LinkedHashMap<>();
+            config.put("rate", openRate);
+            config.put("maxInFlight", maxInFlight);
+            runs.add(measure("open", config, (stats, deadline) -> openLoop(workload, mix, sessions, stats, deadline)));
+        }
+        if (runs.isEmpty()) {
+            throw new IllegalArgumentException("app.loadtest.model must be closed, open or both, not '" + model + "'");
+        }
+        
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("generatedAt", LocalDateTime.now().toString());
+        report.put("environment", Map.of(
+                "java", System.getProperty("java.version"),
+                "cpus", Runtime.getRuntime().availableProcessors(),
+                "maxHeapMb", Runtime.getRuntime().maxMemory() / (1024 * 1024)));
+        report.put("dataset", Map.of(
+                "users", userRepository.count(),
+                "categories", categoryRepository.count(),
+                "products", productRepository.count()));
+        report.put("discovery", workload.describe());
+        report.put("mix", mix.describe());
+        report.put("runs", runs);
+        if (!baseline.isBlank()) {
+            report.put("comparison", compareWithBaseline(runs));
+        }
+        writeReport(report);
+    }
+    
+    private List<Session> loginSessions(LoadTestClient client) throws IOException, InterruptedException {
+        List<Session> sessions = new ArrayList<>(sessionCount);
+        // Seeded usernames are sequential; a few accounts are disabled, so walk past them
+        for (int n = 2; sessions.size() < sessionCount && n < 2 + sessionCount * 3; n++) {
+            String username = String.format("user%07d", n);
+            String token = client.login(username, password);
+            if (token != null) {
+                sessions.add(new Session(username, token));
+            }
+        }
+        if (sessions.isEmpty()) {
+            throw new IllegalStateException("No seeded user could log in");
+        }
+        return sessions;
+    }
+    
+    private Map<String, Object> measure(String name, Map<String, Object> config, Phase phase) throws InterruptedException {
+        logger.info("Load test {} model: warming up for {} s", name, warmupSeconds);
+        phase.run(new RunStats(), System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds));
+        
+        logger.info("Load test {} model: measuring for {} s", name, durationSeconds);
+        RunStats stats = new RunStats();
+        long start = System.nanoTime();
+        long dropped = phase.run(stats, start + TimeUnit.SECONDS.toNanos(durationSeconds));
+        double seconds = (System.nanoTime() - start) / 1e9;
+        
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("model", name);
+        config.put("warmupSeconds", warmupSeconds);
+        config.put("durationSeconds", durationSeconds);
+        config.put("sessions", sessionCount);
+        run.put("config", config);
+        run.put("measuredSeconds", EndpointStats.round(seconds));
+        run.put("droppedArrivals", dropped);
+        run.put("overall", stats.overall.summary(seconds));
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        stats.endpoints.forEach((operation, endpoint) -> {
+            if (endpoint.count() > 0) {
+                endpoints.put(operation.endpoint, endpoint.summary(seconds));
+            }
+        });
+        run.put("endpoints", endpoints);
+        logTable(name, run);
+        return run;
+    }
+    
+    private long closedLoop(Workload workload, TrafficMix mix, List<Session> sessions, RunStats stats, long deadline)
+            throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(closedUsers, threadFactory("loadtest-closed"));
+        for (int i = 0; i < closedUsers; i++) {
+            Session session = sessions.get(i % sessions.size());
+            pool.execute(() -> {
+                while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+                    call(workload, mix.next(), session, stats, System.nanoTime());
+                    think();
+                }
+            });
+        }
+        awaitDrain(pool);
+        return 0;
+    }
+    
+    private long openLoop(Workload workload, TrafficMix mix, List<Session> sessions, RunStats stats, long deadline)
+            throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(maxInFlight, threadFactory("loadtest-open"));
+        Semaphore slots = new Semaphore(maxInFlight);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long dropped = 0;
+        int arrivals = 0;
+        
+        long next = System.nanoTime();
+        while (true) {
+            next += (long) (-Math.log(1 - random.nextDouble()) / openRate * 1e9);
+            if (next >= deadline) {
+                break;
+            }
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            // A saturated server must not slow the arrival schedule down; count what could not be sent
+            if (!slots.tryAcquire()) {
+                dropped++;
+                continue;
+            }
+            long scheduled = next;
+            Session session = sessions.get(arrivals++ % sessions.size());
+            Operation operation = mix.next();
+            pool.execute(() -> {
+                try {
+                    call(workload, operation, session, stats, scheduled);
+                } finally {
+                    slots.release();
+                }
+            });
+        }
+        awaitDrain(pool);
+        return dropped;
+    }
+    
+    private void call(Workload workload, Operation operation, Session session, RunStats stats, long startNanos) {
+        Operation performed = operation;
+        int status;
+        try {
+            Outcome outcome = workload.perform(operation, session);
+            performed = outcome.operation();
+            status = outcome.status();
+        } catch (IOException e) {
+            status = 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        stats.record(performed, status, (System.nanoTime() - startNanos) / 1000);
+    }
+    
+    private void think() {
+        if (thinkMs <= 0) {
+            return;
+        }
+        // Exponential think times keep closed-model users from marching in lockstep
+        long pause = (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * thinkMs);
+        try {
+            Thread.sleep(pause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void awaitDrain(ExecutorService pool) throws InterruptedException {
+        pool.shutdown();
+        if (!pool.awaitTermination(TimeUnit.SECONDS.toMillis(durationSeconds + warmupSeconds) + timeoutMs * 2, TimeUnit.MILLISECONDS)) {
+            pool.shutdownNow();
+        }
+    }
+    
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void logTable(String name, Map<String, Object> run) {
+        StringBuilder table = new StringBuilder();
+        table.append(String.format("%n%-34s %9s %7s %9s %9s %9s %9s %9s",
+                name + " model", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+        Map<String, Object> rows = new LinkedHashMap<>((Map<String, Object>) run.get("endpoints"));
+        rows.put("all", run.get("overall"));
+        rows.forEach((endpoint, value) -> {
+            Map<String, Object> summary = (Map<String, Object>) value;
+            table.append(String.format("%n%-34s %9s %7s %9s %9s %9s %9s %9s", endpoint, summary.get("requests"),
+                    summary.get("errors"), summary.get("throughput"), summary.get("p50Ms"), summary.get("p95Ms"),
+                    summary.get("p99Ms"), summary.get("maxMs")));
+        });
+        if (((Number) run.get("droppedArrivals")).longValue() > 0) {
+            table.append(String.format("%n%d arrivals dropped at max-in-flight", run.get("droppedArrivals")));
+        }
+        logger.info("Load test results:{}", table);
+    }
+    
+    private Map<String, Object> compareWithBaseline(List<Map<String, Object>> runs) throws IOException {
+        JsonNode previous = objectMapper.readTree(Paths.get(baseline).toFile());
+        List<String> regressions = new ArrayList<>();
+        List<String> warnings = new ArrayList<>();
+        double threshold = regressionThresholdPct / 100.0;
+        if (!previous.path("mix").equals(reparse(TrafficMix.parse(mixSpec).describe()))) {
+            warnings.add("Traffic mix differs from baseline");
+        }
+        
+        for (Map<String, Object> run : runs) {
+            JsonNode baselineRun = null;
+            for (JsonNode candidate : previous.path("runs")) {
+                if (candidate.path("model").asText().equals(run.get("model"))) {
+                    baselineRun = candidate;
+                }
+            }
+            if (baselineRun == null) {
+                warnings.add("No " + run.get("model") + " run in baseline");
+                continue;
+            }
+            if (!reparse(run.get("config")).equals(baselineRun.path("config"))) {
+                warnings.add(run.get("model") + " run configuration differs from baseline");
+            }
+            
+            JsonNode current = objectMapper.valueToTree(run);
+            Map<String, JsonNode> endpoints = new LinkedHashMap<>();
+            current.path("endpoints").fields().forEachRemaining(entry -> endpoints.put(entry.getKey(), entry.getValue()));
+            endpoints.put("all", current.path("overall"));
+            for (Map.Entry<String, JsonNode> entry : endpoints.entrySet()) {
+                JsonNode before = entry.getKey().equals("all")
+                        ? baselineRun.path("overall") : baselineRun.path("endpoints").path(entry.getKey());
+                JsonNode after = entry.getValue();
+                if (before.isMissingNode() || before.path("requests").asLong() < MIN_COMPARABLE_SAMPLES
+                        || after.path("requests").asLong() < MIN_COMPARABLE_SAMPLES) {
+                    continue;
+                }
+                String label = run.get("model") + " " + entry.getKey();
+                double p95Before = before.path("p95Ms").asDouble();
+                double p95After = after.path("p95Ms").asDouble();
+                if (p95Before > 0 && p95After > p95Before * (1 + threshold)) {
+                    regressions.add(String.format("%s: p95 %.3f ms -> %.3f ms", label, p95Before, p95After));
+                }
+                double rpsBefore = before.path("throughput").asDouble();
+                double rpsAfter = after.path("throughput").asDouble();
+                if (rpsBefore > 0 && rpsAfter < rpsBefore * (1 - threshold)) {
+                    regressions.add(String.format("%s: throughput %.1f -> %.1f req/s", label, rpsBefore, rpsAfter));
+                }
+                double errorRateBefore = before.path("errors").asDouble() / before.path("requests").asDouble();
+                double errorRateAfter = after.path("errors").asDouble() / after.path("requests").asDouble();
+                if (errorRateAfter > errorRateBefore + 0.01) {
+                    regressions.add(String.format("%s: error rate %.2f%% -> %.2f%%", label, errorRateBefore * 100, errorRateAfter * 100));
+                }
+            }
+        }
+        
+        warnings.forEach(warning -> logger.warn("Baseline comparison: {}", warning));
+        if (regressions.isEmpty()) {
+            logger.info("No regressions beyond {}% against baseline {}", regressionThresholdPct, baseline);
+        } else {
+            regressions.forEach(regression -> logger.warn("Regression against baseline: {}", regression));
+            if (failOnRegression) {
+                exitCode = 2;
+            }
+        }
+        
+        Map<String, Object> comparison = new LinkedHashMap<>();
+        comparison.put("baseline", baseline);
+        comparison.put("thresholdPct", regressionThresholdPct);
+        comparison.put("warnings", warnings);
+        comparison.put("regressions", regressions);
+        return comparison;
+    }
+    
+    // Round-trips through JSON so numbers compare by value the way they were read from the baseline file
+    private JsonNode reparse(Object value) throws IOException {
+        return objectMapper.readTree(objectMapper.writeValueAsBytes(value));
+    }
+    
+    private void writeReport(Map<String, Object> report) throws IOException {
+        Path directory = Paths.get(reportDir);
+        Files.createDirectories(directory);
+        Path target = directory.resolve("loadtest-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(target.toFile(), report);
+        Files.copy(target, directory.resolve("latest.json"), StandardCopyOption.REPLACE_EXISTING);
+        logger.info("Load test report written to {}", target.toAbsolutePath());
+    }
+}
@@ -0,0 +1,88 @@
+package com.universalcrud.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Weighted mix of frontend operations, parsed from "browse:35,search:15,...". Each operation is reported
+// under the endpoint it hits, so runs with the same mix are comparable endpoint by endpoint.
+final class TrafficMix {
+    
+    enum Operation {
+        BROWSE("browse", "GET /products"),
+        CATEGORY("category", "GET /products?categoryId"),
+        SEARCH("search", "GET /products/search"),
+        DETAIL("detail", "GET /products/{id}"),
+        CREATE("create", "POST /products"),
+        UPDATE("update", "PUT /products/{id}"),
+        DELETE("delete", "DELETE /products/{id}"),
+        ADJUST_STOCK("adjust-stock", "POST /products/{id}/adjust-stock"),
+        STATS("stats", "GET /products/stats");
+        
+        final String key;
+        final String endpoint;
+        
+        Operation(String key, String endpoint) {
+            this.key = key;
+            this.endpoint = endpoint;
+        }
+        
+        static Operation fromKey(String key) {
+            for (Operation operation : values()) {
+                if (operation.key.equals(key)) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("Unknown load test operation '" + key + "'");
+        }
+    }
+    
+    private final Map<Operation, Integer> weights;
+    private final Operation[] operations;
+    private final int[] cumulative;
+    
+    private TrafficMix(Map<Operation, Integer> weights) {
+        this.weights = weights;
+        this.operations = weights.keySet().toArray(new Operation[0]);
+        this.cumulative = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += weights.get(operations[i]);
+            cumulative[i] = total;
+        }
+    }
+    
+    static TrafficMix parse(String spec) {
+        Map<Operation, Integer> weights = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] pair = part.trim().split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected operation:weight but got '" + part + "'");
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                weights.merge(Operation.fromKey(pair[0].trim()), weight, Integer::sum);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Load test mix '" + spec + "' has no operations");
+        }
+        return new TrafficMix(weights);
+    }
+    
+    Operation next() {
+        int roll = ThreadLocalRandom.current().nextInt(cumulative[cumulative.length - 1]);
+        for (int i = 0; i < cumulative.length; i++) {
+            if (roll < cumulative[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+    
+    Map<String, Integer> describe() {
+        Map<String, Integer> description = new LinkedHashMap<>();
+        weights.forEach((operation, weight) -> description.put(operation.key, weight));
+        return description;
+    }
+}
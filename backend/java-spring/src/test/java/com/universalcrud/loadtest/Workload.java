@@ -0,0 +1,150 @@
+package com.universalcrud.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.universalcrud.loadtest.TrafficMix.Operation;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Turns mix operations into the requests the frontends make. Reads target the seeded catalogue sampled
+// at setup; writes only ever touch products a session created itself, so runs don't erode the dataset.
+final class Workload {
+    
+    private static final int PAGE_SIZE = 20;
+    private static final int BROWSE_PAGES = 10;
+    
+    // One logged-in frontend user and the products it has created but not yet deleted
+    static final class Session {
+        final String username;
+        final String token;
+        final ConcurrentLinkedDeque<Long> ownProducts = new ConcurrentLinkedDeque<>();
+        
+        Session(String username, String token) {
+            this.username = username;
+            this.token = token;
+        }
+    }
+    
+    record Outcome(Operation operation, int status) {
+    }
+    
+    private final LoadTestClient client;
+    private final String adminToken;
+    private final List<Long> categoryIds = new ArrayList<>();
+    private final List<Long> productIds = new ArrayList<>();
+    private final List<String> searchTerms = new ArrayList<>();
+    
+    Workload(LoadTestClient client, String adminToken) {
+        this.client = client;
+        this.adminToken = adminToken;
+    }
+    
+    // Samples ids and search terms through the API itself, as a frontend would discover them
+    void discover(int productPages) throws IOException, InterruptedException {
+        LoadTestClient.Response categories = client.get("/categories", adminToken);
+        for (JsonNode category : categories.data()) {
+            categoryIds.add(category.path("id").asLong());
+        }
+        
+        Set<String> terms = new LinkedHashSet<>();
+        for (int page = 0; page < productPages; page++) {
+            LoadTestClient.Response products = client.get("/products?page=" + page + "&size=100", adminToken);
+            if (!products.data().isArray() || products.data().isEmpty()) {
+                break;
+            }
+            for (JsonNode product : products.data()) {
+                productIds.add(product.path("id").asLong());
+                for (String word : product.path("name").asText("").split("\\s+")) {
+                    if (word.length() >= 4) {
+                        terms.add(word.toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+        }
+        searchTerms.addAll(terms);
+        
+        if (categoryIds.isEmpty() || productIds.isEmpty()) {
+            throw new IllegalStateException("No catalogue to load test against; is the seed profile active?");
+        }
+    }
+    
+    Map<String, Object> describe() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("sampledCategories", categoryIds.size());
+        description.put("sampledProducts", productIds.size());
+        description.put("searchTerms", searchTerms.size());
+        return description;
+    }
+    
+    // Runs one operation and returns the one actually performed: update and delete fall back to
+    // create while the session has no products of its own
+    Outcome perform(Operation operation, Session session) throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LoadTestClient.Response response;
+        
+        if ((operation == Operation.UPDATE || operation == Operation.DELETE) && session.ownProducts.isEmpty()) {
+            operation = Operation.CREATE;
+        }
+        
+        switch (operation) {
+            case BROWSE -> response = client.get("/products?page=" + browsePage(random) + "&size=" + PAGE_SIZE, session.token);
+            case CATEGORY -> response = client.get("/products?categoryId=" + pick(categoryIds, random)
+                    + "&page=0&size=" + PAGE_SIZE, session.token);
+            case SEARCH -> response = client.get("/products/search?q="
+                    + URLEncoder.encode(pick(searchTerms, random), StandardCharsets.UTF_8) + "&size=" + PAGE_SIZE, session.token);
+            case DETAIL -> response = client.get("/products/" + pick(productIds, random), session.token);
+            case CREATE -> {
+                response = client.send("POST", "/products", session.token, productBody(session, random));
+                if (response.ok()) {
+                    session.ownProducts.addLast(response.data().path("id").asLong());
+                }
+            }
+            case UPDATE -> {
+                Long id = session.ownProducts.peekLast();
+                response = client.send("PUT", "/products/" + id, session.token, productBody(session, random));
+            }
+            case DELETE -> {
+                Long id = session.ownProducts.pollFirst();
+                response = client.send("DELETE", "/products/" + id, session.token, null);
+            }
+            // Positive adjustments only, so the seeded stock levels (and the reports over them) never go negative
+            case ADJUST_STOCK -> response = client.send("POST", "/products/" + pick(productIds, random) + "/adjust-stock",
+                    adminToken, Map.of("adjustment", 1 + random.nextInt(5)));
+            case STATS -> response = client.get("/products/stats", adminToken);
+            default -> throw new IllegalStateException("Unhandled operation " + operation);
+        }
+        
+        return new Outcome(operation, response.status());
+    }
+    
+    // Most visitors stay on the first pages; a few page deeper
+    private static int browsePage(ThreadLocalRandom random) {
+        return random.nextInt(4) == 0 ? random.nextInt(BROWSE_PAGES) : random.nextInt(2);
+    }
+    
+    private Map<String, Object> productBody(Session session, ThreadLocalRandom random) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("name", "Load test " + session.username + " " + random.nextInt(1_000_000));
+        body.put("description", "Created by the load test harness");
+        body.put("price", BigDecimal.valueOf(100 + random.nextInt(100_000)).divide(BigDecimal.valueOf(100), 2, RoundingMode.UNNECESSARY));
+        body.put("quantity", random.nextInt(500));
+        body.put("category", Map.of("id", pick(categoryIds, random)));
+        return body;
+    }
+    
+    private static <T> T pick(List<T> values, ThreadLocalRandom random) {
+        return values.get(random.nextInt(values.size()));
+    }
+}
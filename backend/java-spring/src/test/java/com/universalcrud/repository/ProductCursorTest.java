@@ -0,0 +1,37 @@
+package com.universalcrud.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProductCursorTest {
+    
+    @Test
+    void roundTripsValuesContainingTheSeparator() {
+        ProductCursor cursor = new ProductCursor(ProductSort.NAME, true, 42L, "Left|Right Headphones");
+        assertEquals(cursor, ProductCursor.decode(cursor.encode()));
+    }
+    
+    @Test
+    void roundTripsEverySort() {
+        for (ProductSort sort : ProductSort.values()) {
+            ProductCursor cursor = new ProductCursor(sort, false, 1L, "12.50");
+            assertEquals(cursor, ProductCursor.decode(cursor.encode()));
+        }
+    }
+    
+    @Test
+    void rejectsMalformedCursors() {
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode(encode("price|asc|1")));
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode(encode("colour|asc|1|red")));
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode(encode("price|asc|x|1")));
+    }
+    
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes());
+    }
+}
@@ -0,0 +1,116 @@
+package com.universalcrud.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+// Same configuration as ControllerSerializationTest, so both share one application context
+@SpringBootTest(properties = {
+        "spring.jpa.open-in-view=false",
+        "app.seed.users=20",
+        "app.seed.categories=10",
+        "app.seed.products=200",
+        "app.snapshot.enabled=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles({"h2", "seed"})
+class OwnershipPermissionEvaluatorTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private String owner;
+    private String other;
+    private String admin;
+    private long productId;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        owner = register();
+        other = register();
+        admin = logIn("user0000001", "password123");
+        String created = mockMvc.perform(post("/api/products").header("Authorization", owner)
+                .contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"Owned probe\",\"price\":3,\"quantity\":1}"))
+                .andReturn().getResponse().getContentAsString();
+        productId = objectMapper.readTree(created).path("data").path("id").asLong();
+    }
+    
+    @Test
+    void ownerCanEditAndDeleteTheirProduct() throws Exception {
+        assertEquals(200, status(update(), owner));
+        assertEquals(200, status(patchDescription(), owner));
+        assertEquals(200, status(delete("/api/products/" + productId), owner));
+    }
+    
+    @Test
+    void otherUsersAreForbidden() throws Exception {
+        assertEquals(403, status(update(), other));
+        assertEquals(403, status(patchDescription(), other));
+        assertEquals(403, status(delete("/api/products/" + productId), other));
+        // Someone else's product is forbidden to the owner as well
+        assertEquals(403, status(patch("/api/products/1").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"description\":\"x\"}"), owner));
+    }
+    
+    @Test
+    void adminCanEditAnyProduct() throws Exception {
+        assertEquals(200, status(update(), admin));
+        assertEquals(200, status(patchDescription(), admin));
+        assertEquals(200, status(delete("/api/products/" + productId), admin));
+    }
+    
+    @Test
+    void missingProductIsForbiddenToUsersRatherThanRevealed() throws Exception {
+        assertEquals(403, status(patch("/api/products/999999999").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"description\":\"x\"}"), owner));
+    }
+    
+    private MockHttpServletRequestBuilder update() {
+        return put("/api/products/" + productId).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Owned probe\",\"price\":4,\"quantity\":2,\"isActive\":true}");
+    }
+    
+    private MockHttpServletRequestBuilder patchDescription() {
+        return patch("/api/products/" + productId).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"description\":\"patched\"}");
+    }
+    
+    private int status(MockHttpServletRequestBuilder request, String token) throws Exception {
+        return mockMvc.perform(request.header("Authorization", token)).andReturn().getResponse().getStatus();
+    }
+    
+    private String register() throws Exception {
+        String username = "owner" + UUID.randomUUID().toString().substring(0, 8);
+        int status = mockMvc.perform(post("/api/auth/register").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"" + username + "\",\"email\":\"" + username + "@example.com\","
+                        + "\"password\":\"password123\",\"firstName\":\"Test\",\"lastName\":\"Owner\"}"))
+                .andReturn().getResponse().getStatus();
+        assertEquals(201, status);
+        return logIn(username, "password123");
+    }
+    
+    private String logIn(String username, String password) throws Exception {
+        String body = mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}"))
+                .andReturn().getResponse().getContentAsString();
+        return "Bearer " + objectMapper.readTree(body).path("data").path("accessToken").asText();
+    }
+}
@@ -0,0 +1,85 @@
+package com.universalcrud.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageStorageServiceTest {
+    
+    @TempDir
+    Path dir;
+    
+    private ImageStorageService service;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        service = new ImageStorageService();
+        ReflectionTestUtils.setField(service, "dir", dir.toString());
+        ReflectionTestUtils.setField(service, "maxBytes", 5L * 1024 * 1024);
+        ReflectionTestUtils.setField(service, "maxPixels", 40_000_000L);
+        ReflectionTestUtils.setField(service, "thumbnailWidths", List.of(160));
+        ReflectionTestUtils.setField(service, "workers", 1);
+        ReflectionTestUtils.setField(service, "queueCapacity", 10);
+        service.init();
+    }
+    
+    @Test
+    void rejectsImagesDeclaringTooManyPixels() throws IOException {
+        MockMultipartFile bomb = new MockMultipartFile("file", "bomb.png", "image/png", pngHeader(30000, 30000));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> service.store(bomb));
+        assertTrue(e.getMessage().contains("30000x30000"));
+    }
+    
+    @Test
+    void storesAndDownscalesOrdinaryImages() throws Exception {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(1200, 800, BufferedImage.TYPE_INT_RGB), "png", png);
+        String name = service.store(new MockMultipartFile("file", "photo.png", "image/png", png.toByteArray()));
+        assertNotNull(service.findOriginal(name));
+        
+        service.generateThumbnails(name);
+        for (int i = 0; i < 100 && service.findThumbnail(name, 160) == null; i++) {
+            Thread.sleep(50);
+        }
+        Path thumbnail = service.findThumbnail(name, 160);
+        assertNotNull(thumbnail);
+        BufferedImage rendered = ImageIO.read(Files.newInputStream(thumbnail));
+        assertTrue(rendered.getWidth() == 160 && rendered.getHeight() == 107);
+        service.shutdown();
+    }
+    
+    // Signature and IHDR chunk only: enough for a reader to report the declared size
+    private static byte[] pngHeader(int width, int height) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write(new byte[] {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'});
+        ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(chunk);
+        data.writeBytes("IHDR");
+        data.writeInt(width);
+        data.writeInt(height);
+        data.write(new byte[] {8, 2, 0, 0, 0});
+        CRC32 crc = new CRC32();
+        crc.update(chunk.toByteArray());
+        out.writeInt(13);
+        out.write(chunk.toByteArray());
+        out.writeInt((int) crc.getValue());
+        return bytes.toByteArray();
+    }
+}
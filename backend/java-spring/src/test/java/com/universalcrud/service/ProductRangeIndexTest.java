@@ -0,0 +1,90 @@
+package com.universalcrud.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.universalcrud.entity.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Same configuration as ControllerSerializationTest, so both share one application context
+@SpringBootTest(properties = {
+        "spring.jpa.open-in-view=false",
+        "app.seed.users=20",
+        "app.seed.categories=10",
+        "app.seed.products=200",
+        "app.snapshot.enabled=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles({"h2", "seed"})
+class ProductRangeIndexTest {
+    
+    // Far above the seeded prices, so a range around them only ever holds this test's products
+    private static final BigDecimal FIRST_PRICE = new BigDecimal("98765.43");
+    private static final BigDecimal SECOND_PRICE = new BigDecimal("98765.44");
+    private static final BigDecimal THIRD_PRICE = new BigDecimal("98765.45");
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private ProductRangeIndex productRangeIndex;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Test
+    void indexFollowsEveryWrite() throws Exception {
+        Product product = new Product("Range probe", "Index test", FIRST_PRICE, 4);
+        Long id = productService.createProduct(product).getId();
+        assertTrue(indexedAt(id, FIRST_PRICE));
+        
+        Product details = new Product("Range probe", "Index test", SECOND_PRICE, 0);
+        details.setIsActive(true);
+        productService.updateProduct(id, details);
+        assertFalse(indexedAt(id, FIRST_PRICE));
+        assertTrue(indexedAt(id, SECOND_PRICE));
+        assertTrue(productRangeIndex.findOutOfStock(PageRequest.of(0, 10_000)).getContent().contains(id));
+        
+        productService.patchProduct(id, objectMapper.readTree("{\"price\": " + THIRD_PRICE + ", \"quantity\": 7}"));
+        assertTrue(indexedAt(id, THIRD_PRICE));
+        assertFalse(productRangeIndex.findOutOfStock(PageRequest.of(0, 10_000)).getContent().contains(id));
+        
+        productService.patchProducts(List.of(objectMapper.readTree("{\"id\": " + id + ", \"isActive\": false}")));
+        assertFalse(indexedAt(id, THIRD_PRICE));
+        
+        productService.toggleProductStatus(id);
+        assertTrue(indexedAt(id, THIRD_PRICE));
+        
+        productService.deleteProduct(id);
+        assertFalse(indexedAt(id, THIRD_PRICE));
+    }
+    
+    @Test
+    void refreshReplacesWhateverALateCallbackLeftBehind() {
+        Long id = productService.createProduct(new Product("Stale probe", "Index test", FIRST_PRICE, 4)).getId();
+        
+        // As if an older transaction's callback had run after the newer one's
+        productRangeIndex.restore(id, ProductRangeIndex.toCents(SECOND_PRICE), 4);
+        productRangeIndex.refresh(id);
+        assertTrue(indexedAt(id, FIRST_PRICE));
+        assertFalse(indexedAt(id, SECOND_PRICE));
+        
+        productService.deleteProduct(id);
+        productRangeIndex.restore(id, ProductRangeIndex.toCents(FIRST_PRICE), 4);
+        productRangeIndex.refresh(id);
+        assertFalse(indexedAt(id, FIRST_PRICE));
+    }
+    
+    private boolean indexedAt(Long id, BigDecimal price) {
+        return productRangeIndex.findByPriceRange(price, price, PageRequest.of(0, 100)).getContent().contains(id);
+    }
+}
@@ -0,0 +1,62 @@
+package com.universalcrud.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.universalcrud.entity.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Same configuration as ControllerSerializationTest, so both share one application context
+@SpringBootTest(properties = {
+        "spring.jpa.open-in-view=false",
+        "app.seed.users=20",
+        "app.seed.categories=10",
+        "app.seed.products=200",
+        "app.snapshot.enabled=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles({"h2", "seed"})
+class ProductServiceTest {
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Test
+    void clientSkusCannotClaimTheGeneratedRange() throws Exception {
+        Product reserved = product("Reserved");
+        reserved.setSku(ProductService.formatSku(Long.MAX_VALUE / 2));
+        assertThrows(IllegalArgumentException.class, () -> productService.createProduct(reserved));
+        
+        Product generated = productService.createProduct(product("Generated"));
+        assertTrue(generated.getSku().startsWith("SKU-P"));
+        
+        // Sending the generated SKU back unchanged is allowed; moving to another one in the range is not
+        Product details = product("Generated, renamed");
+        details.setSku(generated.getSku());
+        assertEquals("Generated, renamed", productService.updateProduct(generated.getId(), details).getName());
+        details.setSku("SKU-PZZZZZZZ");
+        assertThrows(IllegalArgumentException.class, () -> productService.updateProduct(generated.getId(), details));
+        assertThrows(IllegalArgumentException.class, () -> productService.patchProduct(generated.getId(),
+                objectMapper.readTree("{\"sku\": \"SKU-PZZZZZZZ\"}")));
+        
+        String own = "SKU-T" + UUID.randomUUID().toString().substring(0, 8);
+        assertEquals(own, productService.patchProduct(generated.getId(),
+                objectMapper.readTree("{\"sku\": \"" + own + "\"}")).getSku());
+    }
+    
+    private static Product product(String name) {
+        return new Product(name, "Test product", new BigDecimal("9.99"), 5);
+    }
+}
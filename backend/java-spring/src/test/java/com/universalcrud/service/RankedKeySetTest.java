@@ -0,0 +1,57 @@
+package com.universalcrud.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RankedKeySetTest {
+    
+    @Test
+    void slicesAndCountsMatchASortedSet() {
+        RankedKeySet set = new RankedKeySet();
+        TreeSet<long[]> expected = new TreeSet<>((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        Random random = new Random(42);
+        for (long id = 1; id <= 2000; id++) {
+            long value = random.nextInt(50);
+            set.add(value, id);
+            expected.add(new long[] {value, id});
+        }
+        for (long id = 1; id <= 2000; id += 3) {
+            long finalId = id;
+            long[] key = expected.stream().filter(k -> k[1] == finalId).findFirst().orElseThrow();
+            set.remove(key[0], key[1]);
+            expected.remove(key);
+        }
+        
+        for (long min = -1; min <= 50; min += 7) {
+            for (long max = min; max <= 51; max += 5) {
+                long lo = min;
+                long hi = max;
+                List<Long> ids = new ArrayList<>();
+                expected.stream().filter(k -> k[0] >= lo && k[0] <= hi).forEach(k -> ids.add(k[1]));
+                
+                assertEquals(ids.size(), set.count(min, max));
+                RankedKeySet.Slice slice = set.slice(min, max, 10, 25);
+                assertEquals(ids.size(), slice.total());
+                assertEquals(ids.subList(Math.min(10, ids.size()), Math.min(35, ids.size())), slice.ids());
+            }
+        }
+    }
+    
+    @Test
+    void emptyAndInvertedRanges() {
+        RankedKeySet set = new RankedKeySet();
+        assertEquals(0, set.count(Long.MIN_VALUE, Long.MAX_VALUE));
+        set.add(5, 1);
+        assertEquals(1, set.count(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(0, set.count(6, 5));
+        assertEquals(List.of(), set.slice(0, 10, 1, 10).ids());
+        assertEquals(List.of(), set.slice(0, 4, 0, 10).ids());
+        assertEquals(List.of(1L), set.slice(5, 5, 0, 10).ids());
+    }
+}
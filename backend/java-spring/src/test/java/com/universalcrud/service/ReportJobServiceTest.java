@@ -0,0 +1,208 @@
+package com.universalcrud.service;
+
+import com.universalcrud.dto.ReportRequest;
+import com.universalcrud.dto.StockRow;
+import com.universalcrud.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+class ReportJobServiceTest {
+    
+    private ReportJobService service;
+    private ProductRepository productRepository;
+    private final AtomicInteger streams = new AtomicInteger();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile boolean blocking;
+    
+    @BeforeEach
+    void setUp() {
+        productRepository = Mockito.mock(ProductRepository.class);
+        when(productRepository.countActiveProducts()).thenReturn(3L);
+        // Each stream signals that a worker picked it up and, while blocking is set, holds the worker on its
+        // first row; the rows go on long enough for the worker to reach a chunk boundary and see a cancel
+        when(productRepository.streamActiveStockRows()).thenAnswer(invocation -> {
+            streams.incrementAndGet();
+            if (!blocking) {
+                return Stream.of(row(1, 2), row(2, 50), row(3, 5));
+            }
+            AtomicInteger next = new AtomicInteger();
+            return Stream.generate(() -> {
+                if (next.get() == 0) {
+                    started.countDown();
+                    await(release);
+                }
+                return row(next.incrementAndGet(), 1);
+            }).limit(100_000);
+        });
+        
+        service = new ReportJobService();
+        ReflectionTestUtils.setField(service, "productRepository", productRepository);
+        ReflectionTestUtils.setField(service, "transactionManager", new NoOpTransactionManager());
+        ReflectionTestUtils.setField(service, "workers", 1);
+        ReflectionTestUtils.setField(service, "queueCapacity", 1);
+        ReflectionTestUtils.setField(service, "maxJobs", 10);
+        ReflectionTestUtils.setField(service, "ttlMinutes", 60L);
+        service.init();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        service.shutdown();
+    }
+    
+    @Test
+    void submittedJobRunsToCompletion() throws Exception {
+        ReportJob job = service.submit(lowStock(10), "tester");
+        
+        awaitFinished(job);
+        assertEquals(ReportJob.Status.COMPLETED, job.getStatus());
+        assertEquals(3, job.getProcessed());
+        assertTrue(job.getResult() instanceof Map);
+        assertTrue(service.getJob(job.getId()).isPresent());
+    }
+    
+    @Test
+    void cancellingQueuedJobKeepsItFromRunning() throws Exception {
+        blocking = true;
+        ReportJob running = service.submit(lowStock(10), "tester");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        ReportJob queued = service.submit(lowStock(10), "tester");
+        
+        assertTrue(service.cancel(queued.getId()));
+        assertEquals(ReportJob.Status.CANCELLED, queued.getStatus());
+        
+        // The running job stops at its next chunk once cancelled, and the queued one never opens a stream
+        assertTrue(service.cancel(running.getId()));
+        release.countDown();
+        awaitFinished(running);
+        Thread.sleep(100);
+        assertEquals(ReportJob.Status.CANCELLED, running.getStatus());
+        assertTrue(running.getProcessed() < 100_000);
+        assertEquals(1, streams.get());
+    }
+    
+    @Test
+    void cancellingFinishedJobDiscardsIt() throws Exception {
+        ReportJob job = service.submit(lowStock(10), "tester");
+        awaitFinished(job);
+        
+        assertTrue(service.cancel(job.getId()));
+        assertFalse(service.getJob(job.getId()).isPresent());
+        assertFalse(service.cancel(job.getId()));
+    }
+    
+    @Test
+    void sweepDropsOnlyExpiredFinishedJobs() throws Exception {
+        ReportJob expired = service.submit(lowStock(10), "tester");
+        awaitFinished(expired);
+        ReportJob fresh = service.submit(lowStock(10), "tester");
+        awaitFinished(fresh);
+        expired.setFinishedAt(LocalDateTime.now().minusMinutes(61));
+        
+        blocking = true;
+        ReportJob running = service.submit(lowStock(10), "tester");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        
+        service.sweepExpired();
+        assertFalse(service.getJob(expired.getId()).isPresent());
+        assertTrue(service.getJob(fresh.getId()).isPresent());
+        assertTrue(service.getJob(running.getId()).isPresent());
+    }
+    
+    @Test
+    void fullQueueRejectsWithoutRetainingTheJob() throws Exception {
+        blocking = true;
+        service.submit(lowStock(10), "tester");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        service.submit(lowStock(10), "tester");
+        
+        RejectedExecutionException e = assertThrows(RejectedExecutionException.class,
+                () -> service.submit(lowStock(10), "tester"));
+        assertTrue(e.getMessage().contains("queue is full"));
+        assertEquals(2, service.getJobs().size());
+    }
+    
+    @Test
+    void retainedJobLimitRejectsOnceNothingHasExpired() throws Exception {
+        ReflectionTestUtils.setField(service, "maxJobs", 2);
+        awaitFinished(service.submit(lowStock(10), "tester"));
+        ReportJob second = service.submit(lowStock(10), "tester");
+        awaitFinished(second);
+        
+        assertThrows(RejectedExecutionException.class, () -> service.submit(lowStock(10), "tester"));
+        
+        // Submitting sweeps first, so an expired job makes room
+        second.setFinishedAt(LocalDateTime.now().minusMinutes(61));
+        ReportJob third = service.submit(lowStock(10), "tester");
+        awaitFinished(third);
+        assertEquals(2, service.getJobs().size());
+    }
+    
+    private static ReportRequest lowStock(int threshold) {
+        ReportRequest request = new ReportRequest();
+        request.setType(ReportJob.Type.LOW_STOCK);
+        request.setThreshold(threshold);
+        request.setLimit(100);
+        return request;
+    }
+    
+    private static StockRow row(long id, int quantity) {
+        return new StockRow(id, "Product " + id, "SKU-" + id, 1L, "Category", BigDecimal.TEN, quantity,
+                LocalDateTime.now());
+    }
+    
+    private static void awaitFinished(ReportJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!job.getStatus().isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(job.getStatus().isFinished(), "job " + job.getId() + " is still " + job.getStatus());
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static class NoOpTransactionManager implements PlatformTransactionManager {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+        
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+        
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
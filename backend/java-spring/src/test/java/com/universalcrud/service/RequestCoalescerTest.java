@@ -0,0 +1,113 @@
+package com.universalcrud.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestCoalescerTest {
+    
+    private RequestCoalescer coalescer;
+    
+    @BeforeEach
+    void setUp() {
+        coalescer = new RequestCoalescer();
+        ReflectionTestUtils.setField(coalescer, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(coalescer, "transactionManager", new NoOpTransactionManager());
+        ReflectionTestUtils.setField(coalescer, "enabled", true);
+        ReflectionTestUtils.setField(coalescer, "timeoutMs", 5000L);
+        coalescer.init();
+    }
+    
+    @Test
+    void concurrentCallersShareOneExecution() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            Future<Integer> leader = pool.submit(() -> coalescer.execute("stats", 1, () -> {
+                executions.incrementAndGet();
+                started.countDown();
+                await(release);
+                return 42;
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            List<Future<Integer>> followers = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                followers.add(pool.submit(() -> coalescer.execute("stats", 1, () -> {
+                    executions.incrementAndGet();
+                    return -1;
+                })));
+            }
+            // Followers are parked on the leader's future until it is released
+            Thread.sleep(200);
+            release.countDown();
+            
+            assertEquals(42, leader.get(5, TimeUnit.SECONDS));
+            for (Future<Integer> follower : followers) {
+                assertEquals(42, follower.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, executions.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    @Test
+    void laterCallsRunAgain() {
+        AtomicInteger executions = new AtomicInteger();
+        coalescer.execute("stats", 1, executions::incrementAndGet);
+        coalescer.execute("stats", 1, executions::incrementAndGet);
+        coalescer.execute("stats", 2, executions::incrementAndGet);
+        assertEquals(3, executions.get());
+    }
+    
+    @Test
+    void failuresReachTheCallerAndAreNotCached() {
+        assertThrows(IllegalStateException.class, () -> coalescer.execute("stats", 1, () -> {
+            throw new IllegalStateException("down");
+        }));
+        assertEquals("ok", coalescer.execute("stats", 1, () -> "ok"));
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static class NoOpTransactionManager implements PlatformTransactionManager {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+        
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+        
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
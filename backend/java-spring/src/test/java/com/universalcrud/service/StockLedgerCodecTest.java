@@ -0,0 +1,59 @@
+package com.universalcrud.service;
+
+import com.universalcrud.dto.StockMovement;
+import com.universalcrud.dto.StockMovement.Cause;
+import com.universalcrud.entity.StockLedgerSegment;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StockLedgerCodecTest {
+    
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 9, 30, 0, 125_000_000);
+    
+    @Test
+    void roundTripsMovements() {
+        List<StockMovement> movements = List.of(
+                new StockMovement(START, 10, 10, Cause.CREATED, 1L),
+                new StockMovement(START.plusSeconds(3), -4, 6, Cause.ADJUSTED, null),
+                new StockMovement(START.plusDays(2), 994, 1000, Cause.SET, 123456789L),
+                new StockMovement(START.plusDays(2), -1000, 0, Cause.DELETED, 2L));
+        StockLedgerSegment segment = StockLedgerCodec.segment(5L, 0, movements);
+        
+        assertEquals(START, segment.getStartAt());
+        assertEquals(START.plusDays(2), segment.getEndAt());
+        assertEquals(0, segment.getStartQuantity());
+        assertEquals(0, segment.getEndQuantity());
+        assertEquals(4, segment.getMovementCount());
+        assertEquals(movements, StockLedgerCodec.decode(segment));
+    }
+    
+    @Test
+    void firstDeltaRunsFromTheCheckpoint() {
+        StockLedgerSegment segment = StockLedgerCodec.segment(5L, 20,
+                List.of(new StockMovement(START, 999, 15, Cause.EDITED, null)));
+        assertEquals(-5, StockLedgerCodec.decode(segment).get(0).delta());
+    }
+    
+    @Test
+    void fullSegmentsFitTheColumn() {
+        List<StockMovement> movements = new ArrayList<>();
+        for (int i = 0; i < StockLedgerCodec.MAX_MOVEMENTS; i++) {
+            int quantity = i % 2 == 0 ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+            movements.add(new StockMovement(START.plusYears(i), 0, quantity, Cause.DELETED, Long.MAX_VALUE - 1));
+        }
+        StockLedgerSegment segment = StockLedgerCodec.segment(5L, 0, movements);
+        assertTrue(segment.getMovements().length <= StockLedgerSegment.MAX_MOVEMENT_BYTES);
+        assertEquals(StockLedgerCodec.MAX_MOVEMENTS, StockLedgerCodec.decode(segment).size());
+        
+        movements.add(new StockMovement(START, 0, 0, Cause.SET, null));
+        assertThrows(IllegalArgumentException.class, () -> StockLedgerCodec.segment(5L, 0, movements));
+        assertThrows(IllegalArgumentException.class, () -> StockLedgerCodec.segment(5L, 0, List.of()));
+    }
+}
@@ -0,0 +1,110 @@
+package com.universalcrud.service;
+
+import com.universalcrud.dto.StockMovement;
+import com.universalcrud.dto.StockMovement.Cause;
+import com.universalcrud.entity.Product;
+import com.universalcrud.repository.StockLedgerEntryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Same configuration as ControllerSerializationTest, so both share one application context; a context of
+// its own would recreate the shared in-memory schema underneath the other tests
+@SpringBootTest(properties = {
+        "spring.jpa.open-in-view=false",
+        "app.seed.users=20",
+        "app.seed.categories=10",
+        "app.seed.products=200",
+        "app.snapshot.enabled=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles({"h2", "seed"})
+class StockLedgerServiceTest {
+    
+    private static final LocalDateTime FROM = LocalDateTime.of(2000, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2100, 1, 1, 0, 0);
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private StockLedgerService stockLedgerService;
+    
+    @Autowired
+    private StockLedgerEntryRepository entryRepository;
+    
+    private long settleMs;
+    
+    // Entries settle at once, so every flush() the test calls packs everything recorded so far. The
+    // scheduled flush may still run in between; the assertions hold either way.
+    @BeforeEach
+    void settleImmediately() {
+        StockLedgerService target = AopTestUtils.getTargetObject(stockLedgerService);
+        settleMs = (Long) ReflectionTestUtils.getField(target, "settleMs");
+        ReflectionTestUtils.setField(target, "settleMs", 0L);
+    }
+    
+    @AfterEach
+    void restoreSettle() {
+        StockLedgerService target = AopTestUtils.getTargetObject(stockLedgerService);
+        ReflectionTestUtils.setField(target, "settleMs", settleMs);
+    }
+    
+    @Test
+    void concurrentFlushesPackEachMovementOnce() {
+        Product product = new Product();
+        product.setName("Ledger probe");
+        product.setPrice(new BigDecimal("5.00"));
+        product.setQuantity(10);
+        Long id = productService.createProduct(product).getId();
+        for (int i = 0; i < 40; i++) {
+            productService.adjustStock(id, i % 3 == 0 ? -1 : 2);
+        }
+        List<StockMovement> recorded = stockLedgerService.getMovements(id, FROM, TO, 1000);
+        assertEquals(41, recorded.size());
+        
+        CompletableFuture.allOf(CompletableFuture.runAsync(stockLedgerService::flush),
+                CompletableFuture.runAsync(stockLedgerService::flush)).join();
+        stockLedgerService.flush();
+        
+        assertEquals(0, entryRepository.count());
+        assertEquals(recorded, stockLedgerService.getMovements(id, FROM, TO, 1000));
+    }
+    
+    @Test
+    void historyStopsAtTheLimitAndDeletionClosesIt() {
+        Product product = new Product();
+        product.setName("Ledger limit probe");
+        product.setPrice(new BigDecimal("5.00"));
+        product.setQuantity(3);
+        Long id = productService.createProduct(product).getId();
+        productService.adjustStock(id, 4);
+        stockLedgerService.flush();
+        productService.adjustStock(id, -2);
+        
+        List<StockMovement> first = stockLedgerService.getMovements(id, FROM, TO, 1);
+        assertEquals(1, first.size());
+        assertEquals(Cause.CREATED, first.get(0).cause());
+        assertEquals(5, stockLedgerService.getQuantityAt(id, TO).orElseThrow());
+        
+        productService.deleteProduct(id);
+        List<StockMovement> history = stockLedgerService.getMovements(id, FROM, TO, 1000);
+        assertEquals(4, history.size());
+        assertEquals(Cause.DELETED, history.get(3).cause());
+        assertEquals(-5, history.get(3).delta());
+        assertEquals(0, stockLedgerService.getQuantityAt(id, TO).orElseThrow());
+    }
+}
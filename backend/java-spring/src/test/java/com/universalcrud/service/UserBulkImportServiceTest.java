@@ -0,0 +1,99 @@
+package com.universalcrud.service;
+
+import com.universalcrud.dto.BulkImportResult;
+import com.universalcrud.entity.User;
+import com.universalcrud.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Same configuration as ControllerSerializationTest, so both share one application context
+@SpringBootTest(properties = {
+        "spring.jpa.open-in-view=false",
+        "app.seed.users=20",
+        "app.seed.categories=10",
+        "app.seed.products=200",
+        "app.snapshot.enabled=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles({"h2", "seed"})
+class UserBulkImportServiceTest {
+    
+    @Autowired
+    private UserBulkImportService userBulkImportService;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    
+    @Test
+    void reportsEachRowAndCreatesOnlyTheValidOnes() {
+        String a = "bulk" + UUID.randomUUID().toString().substring(0, 8);
+        String b = "bulk" + UUID.randomUUID().toString().substring(0, 8);
+        List<User> users = Arrays.asList(
+                new User(a, a + "@example.com", "secret1"),
+                new User(a.toUpperCase(), "other-" + a + "@example.com", "secret1"),
+                new User("other-" + a, a.toUpperCase() + "@EXAMPLE.COM", "secret1"),
+                new User("user0000002", "fresh-" + a + "@example.com", "secret1"),
+                new User("fresh-" + a, "user0000003@example.com", "secret1"),
+                new User("x", "not-an-email", "123"),
+                null,
+                new User(b, b + "@example.com", "secret2"));
+        
+        BulkImportResult result = userBulkImportService.importUsers(users);
+        List<BulkImportResult.Row> rows = result.getResults();
+        
+        assertEquals(8, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(i, rows.get(i).index());
+        }
+        assertEquals("created", rows.get(0).status());
+        assertEquals("Duplicate username in request", rows.get(1).error());
+        assertEquals("Duplicate email in request", rows.get(2).error());
+        assertEquals("Username already exists", rows.get(3).error());
+        assertEquals("Email already exists", rows.get(4).error());
+        assertTrue(rows.get(5).error().contains("Username must be between 3 and 50 characters"));
+        assertTrue(rows.get(5).error().contains("Email should be valid"));
+        assertEquals("Empty row", rows.get(6).error());
+        assertEquals("created", rows.get(7).status());
+        assertEquals(2, result.getCreated());
+        assertEquals(6, result.getFailed());
+        
+        User created = userRepository.findByUsername(b).orElseThrow();
+        assertEquals(rows.get(7).id(), created.getId());
+        assertTrue(passwordEncoder.matches("secret2", created.getPassword()));
+        assertNotNull(rows.get(0).id());
+        assertNull(rows.get(1).id());
+    }
+    
+    @Test
+    void rerunningAnImportCreatesNothing() {
+        String a = "bulk" + UUID.randomUUID().toString().substring(0, 8);
+        List<User> users = List.of(new User(a, a + "@example.com", "secret1"));
+        assertEquals(1, userBulkImportService.importUsers(users).getCreated());
+        
+        BulkImportResult rerun = userBulkImportService.importUsers(List.of(new User(a, a + "@example.com", "secret1")));
+        assertEquals(0, rerun.getCreated());
+        assertEquals("Username already exists", rerun.getResults().get(0).error());
+    }
+    
+    @Test
+    void rejectsEmptyRequests() {
+        assertThrows(IllegalArgumentException.class, () -> userBulkImportService.importUsers(List.of()));
+    }
+}
@@ -0,0 +1,69 @@
+package com.universalcrud.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MergePatchTest {
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Set<String> FIELDS = Set.of("name", "description", "price");
+    
+    @Test
+    void appliesPresentMembersOnly() throws Exception {
+        MergePatch patch = MergePatch.of(json("{\"price\": 9.5, \"description\": null}"), FIELDS);
+        List<Object> applied = new ArrayList<>();
+        patch.apply("name", String.class, applied::add);
+        patch.apply("description", String.class, applied::add);
+        patch.applyRequired("price", BigDecimal.class, applied::add);
+        
+        assertEquals(2, applied.size());
+        assertNull(applied.get(0));
+        assertEquals(new BigDecimal("9.5"), applied.get(1));
+        assertFalse(patch.has("name"));
+    }
+    
+    @Test
+    void rejectsUnknownFieldsAndNullRequiredOnes() throws Exception {
+        assertThrows(IllegalArgumentException.class, () -> MergePatch.of(json("{\"nmae\": \"x\"}"), FIELDS));
+        assertThrows(IllegalArgumentException.class, () -> MergePatch.of(json("[]"), FIELDS));
+        MergePatch patch = MergePatch.of(json("{\"name\": null, \"price\": \"abc\"}"), FIELDS);
+        assertThrows(IllegalArgumentException.class, () -> patch.applyRequired("name", String.class, value -> { }));
+        assertThrows(IllegalArgumentException.class, () -> patch.get("price", BigDecimal.class));
+    }
+    
+    @Test
+    void splitsBatchesByIdInRequestOrder() throws Exception {
+        List<JsonNode> items = List.of(json("{\"id\": 7, \"name\": \"a\"}"), json("{\"id\": 3}"));
+        Map<Long, MergePatch> patches = MergePatch.batch(items, FIELDS);
+        
+        assertEquals(List.of(7L, 3L), new ArrayList<>(patches.keySet()));
+        assertEquals("a", patches.get(7L).get("name", String.class));
+        assertFalse(patches.get(7L).has("id"));
+        assertTrue(patches.get(3L).isEmpty());
+    }
+    
+    @Test
+    void rejectsMalformedBatches() throws Exception {
+        assertThrows(IllegalArgumentException.class, () -> MergePatch.batch(List.of(), FIELDS));
+        assertThrows(IllegalArgumentException.class, () -> MergePatch.batch(List.of(json("{\"name\": \"a\"}")), FIELDS));
+        assertThrows(IllegalArgumentException.class,
+                () -> MergePatch.batch(List.of(json("{\"id\": 1}"), json("{\"id\": 1}")), FIELDS));
+    }
+    
+    private static JsonNode json(String text) throws Exception {
+        return MAPPER.readTree(text);
+    }
+}
@@ -0,0 +1,87 @@
+#!/usr/bin/env bash
+# Startup benchmark: time-to-first-request and resident memory of the standard
+# and the AOT + AppCDS builds (and the native image if one has been built).
+#
+#   mvn -Pfast-startup package        # produces both JVM variants and target/app-cds.jsa
+#   ./startup-benchmark.sh [runs]
+#
+# Every run boots on the in-memory H2 profile and polls the catalogue endpoint
+# until it answers 200; the reported time is measured from process launch.
+
+set -euo pipefail
+
+RUNS="${1:-5}"
+PORT="${PORT:-18080}"
+FIRST_REQUEST_PATH="${FIRST_REQUEST_PATH:-/api/api/products?size=1}"
+TIMEOUT_SECONDS="${TIMEOUT_SECONDS:-60}"
+TARGET_DIR="$(cd "$(dirname "$0")" && pwd)/target"
+JAR_NAME="universal-crud-java-1.0.0"
+APP_ARGS=(--spring.profiles.active=h2 --server.port="$PORT" --app.snapshot.enabled=false)
+
+now_ms() {
+    date +%s%3N
+}
+
+# Prints "<milliseconds> <rss-kb>" for one cold start of the given command
+measure_once() {
+    local log="$TARGET_DIR/startup-benchmark.log"
+    local start pid elapsed rss
+    start=$(now_ms)
+    "$@" "${APP_ARGS[@]}" > "$log" 2>&1 &
+    pid=$!
+
+    until curl -sf -o /dev/null "http://localhost:$PORT$FIRST_REQUEST_PATH"; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "Application exited before serving a request, see $log" >&2
+            exit 1
+        fi
+        if (( $(now_ms) - start > TIMEOUT_SECONDS * 1000 )); then
+            kill "$pid"
+            echo "Timed out waiting for the first request, see $log" >&2
+            exit 1
+        fi
+        sleep 0.01
+    done
+
+    elapsed=$(( $(now_ms) - start ))
+    rss=$(ps -o rss= -p "$pid" | tr -d ' ')
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    echo "$elapsed $rss"
+}
+
+# Runs a variant RUNS times and prints min / median / max for both metrics
+benchmark() {
+    local label="$1"
+    shift
+    local times=() rsses=() result
+    for ((i = 1; i <= RUNS; i++)); do
+        result=$(measure_once "$@")
+        times+=("${result% *}")
+        rsses+=("${result#* }")
+    done
+
+    local sorted_times sorted_rss
+    sorted_times=($(printf '%s\n' "${times[@]}" | sort -n))
+    sorted_rss=($(printf '%s\n' "${rsses[@]}" | sort -n))
+    local mid=$(( RUNS / 2 ))
+    printf '%-22s %8s %8s %8s   %8s %8s %8s\n' "$label" \
+        "${sorted_times[0]}" "${sorted_times[$mid]}" "${sorted_times[$((RUNS - 1))]}" \
+        "$(( sorted_rss[0] / 1024 ))" "$(( sorted_rss[mid] / 1024 ))" "$(( sorted_rss[RUNS - 1] / 1024 ))"
+}
+
+if [[ ! -f "$TARGET_DIR/$JAR_NAME-exec.jar" || ! -f "$TARGET_DIR/app-cds.jsa" ]]; then
+    echo "Build first with: mvn -Pfast-startup package" >&2
+    exit 1
+fi
+
+echo "Startup benchmark: $RUNS runs per variant, first request GET $FIRST_REQUEST_PATH"
+printf '%-22s %8s %8s %8s   %8s %8s %8s\n' "variant" "min ms" "p50 ms" "max ms" "min MB" "p50 MB" "max MB"
+
+benchmark "standard" java -jar "$TARGET_DIR/$JAR_NAME-exec.jar"
+benchmark "aot + appcds" java -XX:SharedArchiveFile="$TARGET_DIR/app-cds.jsa" -Dspring.aot.enabled=true \
+    -jar "$TARGET_DIR/$JAR_NAME.jar"
+
+if [[ -x "$TARGET_DIR/universal-crud-java" ]]; then
+    benchmark "native" "$TARGET_DIR/universal-crud-java"
+fi